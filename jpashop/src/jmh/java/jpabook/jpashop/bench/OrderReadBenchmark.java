@@ -0,0 +1,199 @@
+package jpabook.jpashop.bench;
+
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.JpashopApplication;
+import jpabook.jpashop.api.OrderApiController;
+import jpabook.jpashop.api.OrderSimpleApiController;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.CartLine;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 주문 조회 전략(OrderApiController V1~V6, OrderSimpleApiController V1~V4)을 같은 데이터로 비교하는 벤치마크
+ * 강의 내용이 아니라 숫자를 보고 API마다 어떤 전략을 쓸지 정하기 위해 만들었다.
+ *
+ * 1. 임베디드 H2(메모리)로 스프링 컨텍스트를 띄우고 orderCount만큼 주문을 만든다(주문 1건당 상품 2개)
+ * 2. 각 전략의 "리포지토리 조회 + DTO 변환"만 측정한다(JSON 직렬화, HTTP 제외)
+ *    OSIV처럼 지연로딩이 되도록 읽기 전용 트랜잭션 안에서 컨트롤러 메서드를 호출한다
+ * 3. 처리량/평균 지연시간은 JMH가, 할당률은 -prof gc가, 실행한 SQL 수는 SqlCounter(statements / invocations)가 보여준다
+ *
+ * 실행 예) gradle jmh -PjmhArgs="OrderReadBenchmark -p orderCount=100,10000 -prof gc"
+ *
+ * 운영 규모(쏠림이 있는 데이터)로 보려면 애플리케이션을 jpashop.datagen.scale-factor로 띄워서 DataGenerator 데이터로 측정한다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderReadBenchmark {
+
+    private static final int ITEM_COUNT = 50;
+    private static final int MEMBER_COUNT = 100;
+
+    @Param({"100", "1000"})
+    public int orderCount;
+
+    private ConfigurableApplicationContext context;
+    private OrderApiController orderApiController;
+    private OrderSimpleApiController orderSimpleApiController;
+    private TransactionTemplate readOnlyTransaction;
+    private Statistics statistics;
+
+    /**
+     * 실행한 SQL 수를 JMH 결과에 같이 출력하기 위한 보조 카운터
+     * statements / invocations = 호출 1번당 SQL 수
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class SqlCounter {
+        public long statements;
+        public long invocations;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            statements = 0;
+            invocations = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(JpashopApplication.class)
+                .run("--spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                        "--server.port=0",
+                        "--spring.jpa.properties.hibernate.generate_statistics=true",
+                        "--logging.level.org.hibernate.SQL=warn",
+                        "--decorator.datasource.p6spy.enable-logging=false");
+
+        orderApiController = context.getBean(OrderApiController.class);
+        orderSimpleApiController = context.getBean(OrderSimpleApiController.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        seed();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /* 같은 seed로 항상 같은 데이터를 만든다 */
+    private void seed() {
+        MemberService memberService = context.getBean(MemberService.class);
+        ItemService itemService = context.getBean(ItemService.class);
+        OrderService orderService = context.getBean(OrderService.class);
+        SplittableRandom random = new SplittableRandom(42);
+
+        List<Long> memberIds = new ArrayList<>();
+        for (int i = 0; i < MEMBER_COUNT; i++) {
+            Member member = new Member();
+            member.setName("bench-member-" + i);
+            member.setAddress(new Address("Seoul", "street-" + i, "0" + (1000 + i)));
+            memberIds.add(memberService.join(member));
+        }
+
+        List<Long> itemIds = new ArrayList<>();
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            Book book = Book.createBook(null, "bench-book-" + i, 10000 + i * 100, Integer.MAX_VALUE / 2, "author-" + i, "isbn-" + i);
+            itemService.saveItem(book);
+            itemIds.add(book.getId());
+        }
+
+        for (int i = 0; i < orderCount; i++) {
+            Long memberId = memberIds.get(random.nextInt(MEMBER_COUNT));
+            List<CartLine> cartLines = List.of(
+                    new CartLine(itemIds.get(random.nextInt(ITEM_COUNT)), 1 + random.nextInt(3)),
+                    new CartLine(itemIds.get(random.nextInt(ITEM_COUNT)), 1 + random.nextInt(3)));
+            orderService.order(memberId, cartLines);
+        }
+    }
+
+    private Object measure(SqlCounter counter, Supplier<Object> strategy) {
+        long before = statistics.getPrepareStatementCount();
+        Object result = readOnlyTransaction.execute(status -> strategy.get());
+        counter.statements += statistics.getPrepareStatementCount() - before;
+        counter.invocations++;
+        return result;
+    }
+
+    @Benchmark
+    public Object ordersV1(SqlCounter counter) {
+        return measure(counter, () -> orderApiController.ordersV1());
+    }
+
+    @Benchmark
+    public Object ordersV2(SqlCounter counter) {
+        return measure(counter, () -> orderApiController.ordersV2());
+    }
+
+    @Benchmark
+    public Object ordersV3(SqlCounter counter) {
+        return measure(counter, () -> orderApiController.ordersV3(0, null));
+    }
+
+    @Benchmark
+    public Object ordersV3_page(SqlCounter counter) {
+        return measure(counter, () -> orderApiController.ordersV3_page(0, 100));
+    }
+
+    @Benchmark
+    public Object ordersV3_cursor(SqlCounter counter) {
+        return measure(counter, () -> orderApiController.ordersV3_cursor(null, 100));
+    }
+
+    @Benchmark
+    public Object ordersV4(SqlCounter counter) {
+        return measure(counter, () -> orderApiController.ordersV4());
+    }
+
+    @Benchmark
+    public Object ordersV5(SqlCounter counter) {
+        return measure(counter, () -> orderApiController.ordersV5());
+    }
+
+    @Benchmark
+    public Object ordersV6(SqlCounter counter) {
+        return measure(counter, () -> orderApiController.ordersV6(null, null));
+    }
+
+    @Benchmark
+    public Object simpleOrdersV1(SqlCounter counter) {
+        return measure(counter, () -> orderSimpleApiController.ordersV1());
+    }
+
+    @Benchmark
+    public Object simpleOrdersV2(SqlCounter counter) {
+        return measure(counter, () -> orderSimpleApiController.ordersV2());
+    }
+
+    @Benchmark
+    public Object simpleOrdersV3(SqlCounter counter) {
+        return measure(counter, () -> orderSimpleApiController.ordersV3());
+    }
+
+    @Benchmark
+    public Object simpleOrdersV4(SqlCounter counter) {
+        return measure(counter, () -> orderSimpleApiController.ordersV4());
+    }
+}
@@ -32,6 +32,8 @@ public class QOrderItem extends EntityPathBase<OrderItem> {
 
     public final NumberPath<Integer> orderPrice = createNumber("orderPrice", Integer.class);
 
+    public final BooleanPath stockPending = createBoolean("stockPending");
+
     public QOrderItem(String variable) {
         this(OrderItem.class, forVariable(variable), INITS);
     }
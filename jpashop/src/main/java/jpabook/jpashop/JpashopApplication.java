@@ -2,7 +2,9 @@ package jpabook.jpashop;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
+@EnableScheduling //인기 상품 재고 반영(HotItemInventory.flush())
 @SpringBootApplication
 public class JpashopApplication {
 
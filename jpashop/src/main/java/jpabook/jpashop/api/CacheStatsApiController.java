@@ -0,0 +1,61 @@
+package jpabook.jpashop.api;
+
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.common.Result;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 2차 캐시 영역(item, member, category)별 hit/miss 통계를 보여주는 API
+ * 영역 크기를 정할 때 참고하기 위해 만들었다.(jpashop.cache.second-level=true일 때만 값이 나온다)
+ */
+@RestController
+@RequiredArgsConstructor
+public class CacheStatsApiController {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @GetMapping("/api/cache/stats")
+    public Result cacheStats() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (!statistics.isStatisticsEnabled()) {
+            return new Result(List.of());
+        }
+
+        List<CacheRegionDto> result = Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .map(region -> new CacheRegionDto(region, statistics.getDomainDataRegionStatistics(region)))
+                .collect(Collectors.toList());
+        return new Result(result);
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class CacheRegionDto {
+        private String region;
+        private long hitCount;
+        private long missCount;
+        private long putCount;
+        private long elementCountInMemory;
+        private double hitRatio;
+
+        public CacheRegionDto(String region, CacheRegionStatistics regionStatistics) {
+            this.region = region;
+            this.hitCount = regionStatistics.getHitCount();
+            this.missCount = regionStatistics.getMissCount();
+            this.putCount = regionStatistics.getPutCount();
+            this.elementCountInMemory = regionStatistics.getElementCountInMemory();
+            long total = hitCount + missCount;
+            this.hitRatio = total == 0 ? 0 : (double) hitCount / total;
+        }
+    }
+}
@@ -2,9 +2,13 @@ package jpabook.jpashop.api;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import jpabook.jpashop.common.Result;
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.service.MemberImportRow;
+import jpabook.jpashop.service.MemberRenameRow;
 import jpabook.jpashop.service.MemberService;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -76,6 +80,25 @@ public class MemberApiController {
         return new UpdateMemberResponse(foundMember.getId(), foundMember.getName());
     }
 
+    /**
+     * 회원 대량 가입 API - 수천 명을 요청 1번, 트랜잭션 1번으로 가입
+     * V2처럼 회원마다 API를 호출하면 요청 N번 + 중복 확인 SELECT N번 + INSERT N번이 생기므로
+     * 한 번에 검증(IN 쿼리)하고 JDBC 배치 INSERT로 저장한다. 응답은 줄별 결과(CREATED, INVALID, DUPLICATE)
+     */
+    @PostMapping("/api/v2/members/bulk")
+    public Result saveMembersV2(@RequestBody @Valid BulkCreateMemberRequest request) {
+        return new Result(memberService.importMembers(request.getMembers()));
+    }
+
+    /**
+     * 회원 이름 일괄 변경 API - 회원마다 SELECT + UPDATE 하지 않고 CASE 문 UPDATE로 한 번에 변경
+     * 응답은 줄별 결과(RENAMED, INVALID, DUPLICATE, NOT_FOUND)
+     */
+    @PutMapping("/api/v2/members/bulk")
+    public Result updateMembersV2(@RequestBody @Valid BulkUpdateMemberRequest request) {
+        return new Result(memberService.renameMembers(request.getMembers()));
+    }
+
     @Data //DTO를 inner class로 선언
     private static class CreateMemberRequest {
         @NotBlank(message = "회원 이름은 공백일 수 없습니다.(V2)") // DTO에 validation 가능
@@ -104,6 +127,20 @@ public class MemberApiController {
         private String name;
     }
 
+    @Data
+    private static class BulkCreateMemberRequest {
+        @NotEmpty(message = "가입할 회원이 없습니다.")
+        @Size(max = 10000, message = "한 번에 10000명까지 가입할 수 있습니다.")
+        private List<MemberImportRow> members;
+    }
+
+    @Data
+    private static class BulkUpdateMemberRequest {
+        @NotEmpty(message = "변경할 회원이 없습니다.")
+        @Size(max = 10000, message = "한 번에 10000명까지 변경할 수 있습니다.")
+        private List<MemberRenameRow> members;
+    }
+
     @Data
     @AllArgsConstructor
     private static class MemberDto {
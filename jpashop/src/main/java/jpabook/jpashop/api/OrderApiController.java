@@ -1,19 +1,34 @@
 package jpabook.jpashop.api;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jpabook.jpashop.common.CursorCodec;
 import jpabook.jpashop.common.Result;
 import jpabook.jpashop.domain.*;
 import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.repository.OrderRepository;
-import jpabook.jpashop.repository.order.query.OrderFlatDto;
-import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.OrderSummaryRepository;
+import jpabook.jpashop.repository.order.loader.OrderGraphLoader;
+import jpabook.jpashop.repository.order.query.OrderFlatGrouper;
 import jpabook.jpashop.repository.order.query.OrderQueryDto;
 import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.service.CartLine;
+import jpabook.jpashop.service.OrderService;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -25,6 +40,13 @@ public class OrderApiController {
 
     private final OrderRepository orderRepository;
     private final OrderQueryRepository orderQueryRepository;
+    private final ObjectMapper objectMapper;
+    private final OrderService orderService;
+    private final OrderGraphLoader orderGraphLoader; // 요청 스코프(프록시가 주입됨)
+    private final OrderSummaryRepository orderSummaryRepository;
+
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int MAX_LIMIT = 1000; // 페이징 API가 한 번에 조회할 수 있는 최대 주문 수
 
     @GetMapping("/api/v1/orders") // V1 : 엔티티 직접 노출 (절대 추천하지 않는 방법)
     public List<Order> ordersV1() {
@@ -48,9 +70,34 @@ public class OrderApiController {
         return new Result(result);
     }
 
+    /**
+     * V2와 같은 응답이지만 DTO를 만들기 전에 OrderGraphLoader로 회원, 배송, 주문상품, 상품을 타입별 IN 쿼리로 미리 조회한다.
+     * default_batch_fetch_size에 맡기면 주문 수, DTO 변환 순서에 따라 쿼리 수가 달라지지만 여기서는 항상 주문 1 + 4번이다.
+     */
+    @GetMapping("/api/v2.1/orders")
+    public Result ordersV2_loader() {
+        List<Order> orders = orderRepository.findAllByString(new OrderSearch());
+        orderGraphLoader.loadAll(orders);
+        List<OrderDto> result = orders.stream()
+                .map(order -> new OrderDto(order, orderGraphLoader))
+                .collect(toList());
+        return new Result(result);
+    }
+
+    /**
+     * limit을 넘기면 order_id를 먼저 SQL로 페이징한 뒤 그 id들만 페치 조인한다(메모리 페이징 X)
+     * 음수 offset, 범위를 벗어난 limit은 400
+     */
     @GetMapping("/api/v3/orders")
-    public Result ordersV3() {
-        List<Order> orders = orderRepository.findAllWithItem();
+    public Result ordersV3(@RequestParam(value = "offset", defaultValue = "0") int offset,
+                           @RequestParam(value = "limit", required = false) Integer limit) {
+        checkOffset(offset);
+        if (limit != null) {
+            checkLimit(limit);
+        }
+        List<Order> orders = limit == null
+                ? orderRepository.findAllWithItem()
+                : orderRepository.findAllWithItem(offset, limit);
         List<OrderDto> result = orders.stream()
                 .map(order -> new OrderDto(order))
                 .collect(toList());
@@ -72,6 +119,34 @@ public class OrderApiController {
         return new Result(result);
     }
 
+    /**
+     * V3.1과 같은 응답(OrderDto)이지만 offset 대신 커서(마지막 order_id)로 다음 페이지를 조회한다.
+     * limit + 1개를 조회해서 다음 페이지 존재 여부를 판단하고, 있으면 nextCursor를 함께 내려준다.
+     * limit은 1 ~ MAX_LIMIT만 허용한다(0이면 마지막 주문을 꺼낼 수 없고, 너무 크면 한 번에 전체 주문을 읽게 된다)
+     * 잘못된 limit, 해석할 수 없는 cursor는 400
+     */
+    @GetMapping("/api/v3.2/orders")
+    public Result ordersV3_cursor(@RequestParam(value = "cursor", required = false) String cursor,
+                                  @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        checkLimit(limit);
+        Long lastOrderId;
+        try {
+            lastOrderId = CursorCodec.decode(cursor);
+        } catch (IllegalArgumentException e) { // 잘못되거나 변조된 커서는 클라이언트 문제이므로 400
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        List<Order> orders = orderRepository.findAllWithMemberAndDeliveryAfter(lastOrderId, limit + 1);
+        boolean hasNext = orders.size() > limit;
+        if (hasNext) {
+            orders = orders.subList(0, limit);
+        }
+        List<OrderDto> result = orders.stream()
+                .map(order -> new OrderDto(order))
+                .collect(toList());
+        String nextCursor = hasNext ? CursorCodec.encode(orders.get(orders.size() - 1).getId()) : null;
+        return new Result(result, nextCursor);
+    }
+
     @GetMapping("/api/v4/orders")
     public List<OrderQueryDto> ordersV4() {
         return orderQueryRepository.findOrderQueryDtos();
@@ -82,21 +157,124 @@ public class OrderApiController {
         return orderQueryRepository.findAllByDtoOptimization();
     }
 
+    /**
+     * 플랫 row를 OrderFlatGrouper로 한 번에 훑으면서 주문 단위로 접는다(order_id 순서 유지)
+     * limit을 넘기면 lastOrderId 다음 주문부터 "주문" limit개만 조회하므로 V6도 페이징이 가능하다
+     * limit 없이 lastOrderId만 넘기면 전체 주문을 내려주게 되므로 400
+     */
     @GetMapping("/api/v6/orders")
-    public List<OrderQueryDto> ordersV6() {
-        List<OrderFlatDto> flats = orderQueryRepository.findAllByDtoFlat();
-        return flats.stream()
-                .collect(groupingBy(o -> new OrderQueryDto(o.getOrderId(),
-                                o.getName(), o.getOrderDate(), o.getOrderStatus(), o.getAddress()),
-                        mapping(o -> new OrderItemQueryDto(o.getOrderId(),
-                                o.getItemName(), o.getPrice(), o.getCount()), toList())
-                )).entrySet().stream()
-                .map(e -> new OrderQueryDto(e.getKey().getOrderId(),
-                        e.getKey().getName(), e.getKey().getOrderDate(), e.getKey().getOrderStatus(),
-                        e.getKey().getAddress(), e.getValue()))
+    public List<OrderQueryDto> ordersV6(@RequestParam(value = "lastOrderId", required = false) Long lastOrderId,
+                                        @RequestParam(value = "limit", required = false) Integer limit) {
+        if (limit == null) {
+            if (lastOrderId != null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "lastOrderId는 limit과 같이 넘겨야 합니다.");
+            }
+            return OrderFlatGrouper.group(orderQueryRepository.findAllByDtoFlat());
+        }
+        checkLimit(limit);
+        return orderQueryRepository.findAllByDtoFlat(lastOrderId, limit);
+    }
+
+    /**
+     * V6의 플랫 조인을 스트리밍으로 내려주는 전체 주문 내보내기 API (NDJSON: 한 줄에 주문 1건)
+     * V6처럼 전체 row를 List로 모은 뒤 메모리에서 그룹핑하지 않기 때문에 주문이 수백만 건이어도 힙 사용량이 일정하다.
+     * StreamingResponseBody는 별도 스레드에서 실행되므로 OSIV가 아닌 streamAllByDtoFlat()의 트랜잭션 안에서 DB 커서를 읽는다.
+     */
+    @GetMapping(value = "/api/v6/orders/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportOrdersV6() {
+        StreamingResponseBody body = outputStream -> {
+            try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(outputStream)) {
+                orderQueryRepository.streamAllByDtoFlat(orderQueryDto -> {
+                    try {
+                        writer.write(orderQueryDto);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
+    }
+
+    /**
+     * 주문 목록/검색을 order_summary 한 테이블에서 조회(조인 X, 총 금액 재계산 X)
+     * 주문/취소할 때 OrderService가 OrderSummary를 같이 갱신하므로 주문 목록 화면에 필요한 값이 이미 들어있다
+     * EX) /api/v7/orders?memberName=Oh&orderStatus=ORDER&offset=0&limit=100
+     * 음수 offset, 범위를 벗어난 limit(한 번에 order_summary 전체를 읽는 요청)은 400
+     */
+    @GetMapping("/api/v7/orders")
+    public Result ordersV7(@ModelAttribute OrderSearch orderSearch,
+                           @RequestParam(value = "offset", defaultValue = "0") int offset,
+                           @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        checkOffset(offset);
+        checkLimit(limit);
+        List<OrderSummaryDto> result = orderSummaryRepository.findAll(orderSearch, offset, limit).stream()
+                .map(orderSummary -> new OrderSummaryDto(orderSummary))
                 .collect(toList());
+        return new Result(result);
+    }
+
+    /**
+     * 장바구니 주문 API - 여러 상품을 주문 1건으로 생성
+     * 상품마다 주문 API를 호출하면 주문 N건, 트랜잭션 N번이 생기므로 한 번에 받아서 처리한다
+     */
+    @PostMapping("/api/v1/orders")
+    public CreateOrderResponse saveOrderV1(@RequestBody @Valid CreateOrderRequest request) {
+        Long orderId = orderService.order(request.getMemberId(), request.getCartLines());
+        return new CreateOrderResponse(orderId);
+    }
+
+    /* 페이징 API의 limit은 1 ~ MAX_LIMIT(0 이하는 setMaxResults()에서 500, 너무 크면 한 번에 전체 주문을 읽게 된다) */
+    private static void checkLimit(int limit) {
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit은 1 이상 " + MAX_LIMIT + " 이하여야 합니다.");
+        }
+    }
+
+    private static void checkOffset(int offset) {
+        if (offset < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "offset은 0 이상이어야 합니다.");
+        }
+    }
+
+    @Data
+    private static class CreateOrderRequest {
+        @NotNull(message = "회원 id는 필수입니다.")
+        private Long memberId;
+
+        @Valid
+        @NotEmpty(message = "주문할 상품이 없습니다.")
+        private List<CartLine> cartLines;
     }
 
+    @Data
+    @AllArgsConstructor
+    private static class CreateOrderResponse {
+        private Long orderId;
+    }
+
+    @Data
+    private static class OrderSummaryDto {
+        private Long orderId;
+        private String name;
+        private LocalDateTime orderDate;
+        private OrderStatus orderStatus;
+        private Address address;
+        private int itemCount;
+        private int totalPrice;
+
+        public OrderSummaryDto(OrderSummary orderSummary) {
+            this.orderId = orderSummary.getId();
+            this.name = orderSummary.getMemberName();
+            this.orderDate = orderSummary.getOrderDate();
+            this.orderStatus = orderSummary.getStatus();
+            this.address = orderSummary.getAddress();
+            this.itemCount = orderSummary.getItemCount();
+            this.totalPrice = orderSummary.getTotalPrice();
+        }
+    }
 
     @Data
     private static class OrderDto {
@@ -117,20 +295,38 @@ public class OrderApiController {
                     .map(orderItem -> new OrderItemDto(orderItem))
                     .collect(toList());
         }
+
+        // 연관 엔티티를 지연로딩하지 않고 OrderGraphLoader가 미리 조회한 결과에서 꺼낸다
+        public OrderDto(Order order, OrderGraphLoader loader) {
+            this.orderId = order.getId();
+            this.name = loader.member(order).getName();
+            this.orderDate = order.getOrderDate();
+            this.orderStatus = order.getStatus();
+            this.address = loader.delivery(order).getAddress();
+            this.orderItems = loader.orderItems(order).stream()
+                    .map(orderItem -> new OrderItemDto(orderItem, loader.item(orderItem)))
+                    .collect(toList());
+        }
     }
 
+    /*
+    OrderItemDto도 엔티티(Item, Order)를 그대로 담으면 지연로딩 프록시(ByteBuddyInterceptor)를 직렬화하다가 '500' 에러가 나고
+    엔티티 스펙이 API 스펙으로 노출되므로 화면에 필요한 값만 꺼내서 담는다
+    */
     @Data
     private static class OrderItemDto {
-        private Long id;
-        private Item item;
-        private Order order;
+        private String itemName; // 상품명
         private int orderPrice; // 주문 가격
         private int count; // 주문 수량
 
         public OrderItemDto(OrderItem orderItem) {
-            this.id = orderItem.getId();
-            this.item = orderItem.getItem();
-            this.order = orderItem.getOrder();
+            this.itemName = orderItem.getItem().getName();
+            this.orderPrice = orderItem.getOrderPrice();
+            this.count = orderItem.getCount();
+        }
+
+        public OrderItemDto(OrderItem orderItem, Item item) {
+            this.itemName = item.getName();
             this.orderPrice = orderItem.getOrderPrice();
             this.count = orderItem.getCount();
         }
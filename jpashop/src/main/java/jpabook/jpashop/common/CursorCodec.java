@@ -0,0 +1,40 @@
+package jpabook.jpashop.common;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 커서 기반 페이징에서 사용하는 커서 문자열을 만들고 해석하는 클래스
+ * 클라이언트가 커서 안의 값(order_id)에 의존하지 않도록 Base64로 감싼 불투명(opaque)한 문자열로 내려준다.
+ * 나중에 정렬 기준(orderDate 등)이 추가되더라도 API 스펙을 바꾸지 않고 커서 내용만 바꾸면 된다.
+ */
+public final class CursorCodec {
+
+    private static final String PREFIX = "o:";
+
+    private CursorCodec() {
+    }
+
+    public static String encode(Long lastId) {
+        if (lastId == null) {
+            return null;
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("잘못된 커서입니다.");
+            }
+            return Long.parseLong(decoded.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) { // NumberFormatException도 여기서 처리
+            throw new IllegalArgumentException("잘못된 커서입니다.", e);
+        }
+    }
+}
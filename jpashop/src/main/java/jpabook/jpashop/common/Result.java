@@ -1,5 +1,6 @@
 package jpabook.jpashop.common;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
@@ -14,4 +15,11 @@ import lombok.Data;
 @AllArgsConstructor
 public class Result<T> {
     private T data;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL) // 커서 페이징이 아닌 API에서는 노출하지 않음
+    private String nextCursor; // 다음 페이지를 요청할 때 그대로 넘겨주는 값(마지막 페이지면 null)
+
+    public Result(T data) {
+        this.data = data;
+    }
 }
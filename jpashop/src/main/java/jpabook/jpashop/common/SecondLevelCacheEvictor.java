@@ -0,0 +1,40 @@
+package jpabook.jpashop.common;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 2차 캐시에 올라간 엔티티를 쓰기 작업 이후에 제거해주는 클래스
+ * 변경 감지로 발생한 UPDATE는 READ_WRITE 전략이 알아서 캐시를 갱신하지만,
+ * 벌크 연산(JPQL UPDATE)이나 다른 서버에서 변경한 값은 캐시에 반영되지 않기 때문에 쓰기 경로에서 명시적으로 제거한다.
+ * 2차 캐시를 끈 상태(기본값)에서는 아무 일도 하지 않는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class SecondLevelCacheEvictor {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * 커밋 전에 지우면 다른 트랜잭션이 커밋 전의 값을 다시 캐시에 올릴 수 있으므로 커밋 이후에 제거한다
+     */
+    public void evictAfterCommit(Class<?> entityClass, Object id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(entityClass, id);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(entityClass, id);
+            }
+        });
+    }
+
+    private void evict(Class<?> entityClass, Object id) {
+        entityManagerFactory.getCache().evict(entityClass, id);
+    }
+}
@@ -0,0 +1,84 @@
+package jpabook.jpashop.common;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 재고를 여러 칸(stripe)에 나눠 담고 CAS로 차감하는 락 없는 재고 카운터
+ * 하나의 AtomicLong을 모든 스레드가 CAS로 두드리면 실패/재시도가 몰리므로, 스레드마다 자기 칸부터 꺼내 쓴다
+ * (LongAdder와 같은 아이디어지만, LongAdder는 "0 밑으로 내려가지 않게 차감"을 할 수 없어서 직접 구현)
+ *
+ * 1. tryReserve(): 자기 칸에서 꺼내고, 모자라면 다른 칸을 돌면서 모자란 만큼 모은다
+ *    끝까지 모자라면 모은 것을 되돌리고 false ==> 합계가 0 밑으로 내려가는 일(초과 판매)은 없다
+ * 2. 다른 스레드가 여러 칸에서 모으는 중이면 잠깐 재고가 부족해 보일 수 있다(품절 직전에만, 초과 판매 대신 드물게 품절 응답)
+ * 3. 칸끼리 같은 캐시 라인을 쓰지 않도록 PADDING 간격으로 배치한다(false sharing 방지)
+ */
+public class StripedStockCounter {
+
+    private static final int PADDING = 8; // long 8개 == 64바이트(캐시 라인)
+
+    private final AtomicLongArray cells;
+    private final int stripes;
+
+    public StripedStockCounter(long stock, int stripes) {
+        if (stock < 0 || stripes < 1) {
+            throw new IllegalArgumentException("stock >= 0, stripes >= 1 이어야 합니다.");
+        }
+        this.stripes = stripes;
+        this.cells = new AtomicLongArray(stripes * PADDING);
+        for (int i = 0; i < stripes; i++) {
+            cells.set(i * PADDING, stock / stripes + (i < stock % stripes ? 1 : 0));
+        }
+    }
+
+    public boolean tryReserve(int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("차감 수량은 1개 이상이어야 합니다.");
+        }
+        int home = homeStripe();
+        long taken = 0;
+        for (int i = 0; i < stripes && taken < quantity; i++) {
+            taken += take((home + i) % stripes, quantity - taken);
+        }
+        if (taken == quantity) {
+            return true;
+        }
+        if (taken > 0) {
+            release(taken);
+        }
+        return false;
+    }
+
+    /* 주문 취소, 주문 트랜잭션 롤백 시 재고를 되돌린다 */
+    public void release(long quantity) {
+        cells.addAndGet(homeStripe() * PADDING, quantity);
+    }
+
+    /* 모든 칸의 합(다른 스레드가 차감 중이면 근사값) */
+    public long available() {
+        long sum = 0;
+        for (int i = 0; i < stripes; i++) {
+            sum += cells.get(i * PADDING);
+        }
+        return sum;
+    }
+
+    /* stripe 칸에서 최대 quantity만큼 꺼내고 꺼낸 양을 반환 */
+    private long take(int stripe, long quantity) {
+        int index = stripe * PADDING;
+        while (true) {
+            long current = cells.get(index);
+            if (current <= 0) {
+                return 0;
+            }
+            long taken = Math.min(current, quantity);
+            if (cells.compareAndSet(index, current, current - taken)) {
+                return taken;
+            }
+        }
+    }
+
+    private int homeStripe() {
+        long id = Thread.currentThread().getId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 33) % stripes;
+    }
+}
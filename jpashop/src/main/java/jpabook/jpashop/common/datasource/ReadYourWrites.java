@@ -0,0 +1,78 @@
+package jpabook.jpashop.common.datasource;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+
+/**
+ * 내가 방금 쓴 데이터는 내가 바로 읽을 수 있어야 한다(read-your-writes)
+ * replica는 primary보다 늦게 반영되므로 주문 직후 주문 목록을 replica에서 읽으면 방금 한 주문이 안 보일 수 있다.
+ *
+ * 1. 쓰기 트랜잭션이 커밋되면 현재 요청(스레드)의 남은 읽기를 primary로 고정하고
+ *    (요청 스레드에서만 고정한다. ReadYourWritesFilter가 요청이 끝날 때 풀어주므로, 스케줄러, order-writer, initDb 같은 스레드에서 고정하면 영원히 풀리지 않는다)
+ * 2. 응답에 마지막 쓰기 시각 쿠키를 내려서, replicaLag 안에 들어오는 같은 클라이언트의 다음 요청(주문 후 redirect 등)도 primary로 보낸다
+ *    (ReadYourWritesFilter가 쿠키를 보고 다시 고정)
+ */
+public final class ReadYourWrites {
+
+    public static final String COOKIE_NAME = "JPASHOP_LAST_WRITE";
+
+    private static final ThreadLocal<Boolean> PINNED_TO_PRIMARY = new ThreadLocal<>();
+    private static final Object SYNCHRONIZATION_KEY = new Object(); // 트랜잭션당 한 번만 등록하기 위한 리소스 키
+
+    private ReadYourWrites() {
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return Boolean.TRUE.equals(PINNED_TO_PRIMARY.get());
+    }
+
+    public static void pinToPrimary() {
+        PINNED_TO_PRIMARY.set(Boolean.TRUE);
+    }
+
+    public static void clear() {
+        PINNED_TO_PRIMARY.remove();
+    }
+
+    /* 현재 쓰기 트랜잭션이 커밋되면 primary 고정 + 쿠키 발급(요청 스레드일 때만) */
+    static void registerWrite(Duration replicaLag) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(SYNCHRONIZATION_KEY)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(SYNCHRONIZATION_KEY, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes servletRequestAttributes)) {
+                    return; // 요청 스레드가 아님(initDb, 스케줄러, order-writer 등) ==> 풀어줄 필터가 없으므로 고정하지 않는다
+                }
+                pinToPrimary();
+                writeCookie(servletRequestAttributes, replicaLag);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(SYNCHRONIZATION_KEY);
+            }
+        });
+    }
+
+    private static void writeCookie(ServletRequestAttributes servletRequestAttributes, Duration replicaLag) {
+        HttpServletResponse response = servletRequestAttributes.getResponse();
+        if (response == null || response.isCommitted()) {
+            return;
+        }
+        Cookie cookie = new Cookie(COOKIE_NAME, String.valueOf(System.currentTimeMillis()));
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge((int) Math.max(1, replicaLag.toSeconds() + 1));
+        response.addCookie(cookie);
+    }
+}
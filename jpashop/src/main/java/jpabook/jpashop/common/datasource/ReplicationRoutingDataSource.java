@@ -0,0 +1,47 @@
+package jpabook.jpashop.common.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 읽기 전용 트랜잭션(@Transactional(readOnly = true))은 replica로, 나머지는 primary로 보내는 DataSource
+ * replica가 여러 개면 라운드 로빈으로 나눈다.
+ *
+ * 주의) 커넥션을 얻는 시점에 트랜잭션의 readOnly 여부를 알아야 하므로 LazyConnectionDataSourceProxy로 감싸서 써야 한다
+ * (트랜잭션 매니저는 readOnly 플래그를 설정하기 전에 커넥션부터 얻는다)
+ */
+public class ReplicationRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    private final List<String> replicaKeys;
+    private final boolean readYourWrites;
+    private final Duration replicaLag;
+    private final AtomicInteger counter = new AtomicInteger();
+
+    public ReplicationRoutingDataSource(List<String> replicaKeys, boolean readYourWrites, Duration replicaLag) {
+        this.replicaKeys = List.copyOf(replicaKeys);
+        this.readYourWrites = readYourWrites;
+        this.replicaLag = replicaLag;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        if (readOnly) {
+            if (replicaKeys.isEmpty() || (readYourWrites && ReadYourWrites.isPinnedToPrimary())) {
+                return PRIMARY;
+            }
+            return replicaKeys.get(Math.floorMod(counter.getAndIncrement(), replicaKeys.size()));
+        }
+
+        if (readYourWrites && TransactionSynchronizationManager.isActualTransactionActive()) {
+            ReadYourWrites.registerWrite(replicaLag);
+        }
+        return PRIMARY; // 쓰기 트랜잭션, 트랜잭션 밖(OSIV 지연로딩 등)
+    }
+}
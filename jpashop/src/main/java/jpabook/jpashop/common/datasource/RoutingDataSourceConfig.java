@@ -0,0 +1,92 @@
+package jpabook.jpashop.common.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * jpashop.datasource.routing.enabled=true일 때만 primary + replica 라우팅 DataSource를 등록한다
+ * (DataSource 빈을 직접 등록하면 스프링 부트의 기본 DataSource 자동 설정은 빠진다)
+ *
+ * 로컬에서는 H2를 하나 더 띄워서 replica 대신 쓴다. EX) java -cp h2*.jar org.h2.tools.Server -tcp -tcpPort 9093
+ * replica에는 ddl-auto가 적용되지 않으므로 primary와 같은 스키마/데이터를 미리 넣어둬야 한다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "jpashop.datasource.routing", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(RoutingDataSourceProperties.class)
+public class RoutingDataSourceConfig {
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties dataSourceProperties, RoutingDataSourceProperties routingProperties) {
+        Map<Object, Object> targetDataSources = new HashMap<>();
+        targetDataSources.put(ReplicationRoutingDataSource.PRIMARY, primaryDataSource(dataSourceProperties));
+
+        List<String> replicaKeys = new ArrayList<>();
+        List<RoutingDataSourceProperties.Replica> replicas = routingProperties.getReplicas();
+        for (int i = 0; i < replicas.size(); i++) {
+            String key = "replica-" + i;
+            targetDataSources.put(key, replicaDataSource(key, replicas.get(i)));
+            replicaKeys.add(key);
+        }
+
+        ReplicationRoutingDataSource routingDataSource = new ReplicationRoutingDataSource(
+                replicaKeys, routingProperties.isReadYourWrites(), routingProperties.getReplicaLag());
+        routingDataSource.setTargetDataSources(targetDataSources);
+        routingDataSource.setDefaultTargetDataSource(targetDataSources.get(ReplicationRoutingDataSource.PRIMARY));
+        routingDataSource.afterPropertiesSet();
+
+        // 실제 커넥션은 첫 SQL을 실행할 때 얻는다(그때는 트랜잭션의 readOnly 여부가 정해져 있음)
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    /**
+     * OSIV가 켜져 있으면 하이버네이트는 요청이 끝날 때까지 처음 얻은 커넥션을 계속 잡고 있다(DELAYED_ACQUISITION_AND_HOLD)
+     * 그러면 같은 요청에서 읽기 트랜잭션 뒤에 오는 쓰기 트랜잭션도 replica 커넥션을 쓰게 되므로 트랜잭션이 끝날 때마다 커넥션을 반납한다
+     */
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "jpashop.datasource.routing", name = "read-your-writes", havingValue = "true", matchIfMissing = true)
+    public ReadYourWritesFilter readYourWritesFilter(RoutingDataSourceProperties routingProperties) {
+        return new ReadYourWritesFilter(routingProperties.getReplicaLag());
+    }
+
+    private DataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    private DataSource replicaDataSource(String poolName, RoutingDataSourceProperties.Replica replica) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(poolName);
+        dataSource.setJdbcUrl(replica.getUrl());
+        dataSource.setUsername(replica.getUsername());
+        dataSource.setPassword(replica.getPassword());
+        dataSource.setDriverClassName(replica.getDriverClassName());
+        dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+}
@@ -0,0 +1,39 @@
+package jpabook.jpashop.common.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * jpashop.datasource.routing.* 설정
+ * primary(쓰기)는 기존 spring.datasource를 그대로 쓰고, 여기에는 읽기 전용 replica만 적는다
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "jpashop.datasource.routing")
+public class RoutingDataSourceProperties {
+
+    private boolean enabled = false;
+
+    /* replica가 primary를 따라잡는 데 걸린다고 가정하는 최대 지연 시간 */
+    private Duration replicaLag = Duration.ofSeconds(1);
+
+    /* true면 쓰기를 커밋한 클라이언트의 읽기를 replicaLag 동안 primary로 보낸다 */
+    private boolean readYourWrites = true;
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName = "org.h2.Driver";
+        private int maximumPoolSize = 10;
+    }
+}
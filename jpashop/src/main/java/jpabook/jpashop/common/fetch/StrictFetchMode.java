@@ -0,0 +1,11 @@
+package jpabook.jpashop.common.fetch;
+
+/**
+ * 서비스 트랜잭션이 끝난 뒤(OSIV 구간) 요청 스레드에서 지연로딩이 일어났을 때의 처리 방식
+ * (YAML에서 off/on은 boolean으로 읽히기 때문에 NONE으로 이름지음)
+ */
+public enum StrictFetchMode {
+    NONE, // 아무것도 안 함(기본값)
+    LOG, // 엔드포인트 이름과 함께 경고 로그
+    THROW // UnplannedLazyLoadException 발생
+}
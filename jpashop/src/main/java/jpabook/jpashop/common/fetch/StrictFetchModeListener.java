@@ -0,0 +1,93 @@
+package jpabook.jpashop.common.fetch;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.http.HttpServletRequest;
+import jpabook.jpashop.exception.UnplannedLazyLoadException;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.HibernateException;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.LoadEvent;
+import org.hibernate.event.spi.LoadEventListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * OSIV가 켜져 있으면 서비스 트랜잭션이 끝난 뒤에도 컨트롤러, DTO 생성자, 타임리프 화면에서 지연로딩이 조용히 일어나고
+ * 그동안 DB 커넥션을 계속 잡고 있게 된다.
+ * 이 리스너는 "요청 스레드 + 트랜잭션 밖"에서 일어나는 프록시 초기화와 컬렉션 초기화를 잡아서
+ * 어떤 엔드포인트에서 무엇을 지연로딩했는지 로그로 남기거나(LOG), 예외를 던진다(THROW).
+ *
+ * jpashop.jpa.strict-fetch: NONE | LOG | THROW
+ */
+@Slf4j
+@Component
+public class StrictFetchModeListener implements LoadEventListener, InitializeCollectionEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final StrictFetchMode mode;
+
+    public StrictFetchModeListener(EntityManagerFactory entityManagerFactory,
+                                   @Value("${jpashop.jpa.strict-fetch:NONE}") StrictFetchMode mode) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.mode = mode;
+    }
+
+    @PostConstruct
+    public void register() {
+        if (mode == StrictFetchMode.NONE) {
+            return;
+        }
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.LOAD, this);
+        registry.appendListeners(EventType.INIT_COLLECTION, this);
+    }
+
+    /* 프록시 초기화(order.getMember().getName() 등)는 IMMEDIATE_LOAD로 들어온다 */
+    @Override
+    public void onLoad(LoadEvent event, LoadType loadType) throws HibernateException {
+        if (loadType == LoadEventListener.IMMEDIATE_LOAD) {
+            check(event.getEntityClassName() + "#" + event.getEntityId());
+        }
+    }
+
+    /* 컬렉션 초기화(order.getOrderItems().stream() 등) */
+    @Override
+    public void onInitializeCollection(InitializeCollectionEvent event) throws HibernateException {
+        check(event.getCollection().getRole() + "#" + event.getAffectedOwnerIdOrNull());
+    }
+
+    private void check(String target) {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (!(requestAttributes instanceof ServletRequestAttributes servletRequestAttributes)
+                || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return; // 요청 스레드가 아니거나 트랜잭션 안에서 계획된 로딩
+        }
+
+        String message = String.format("[트랜잭션 밖 지연로딩] %s - %s",
+                endpointName(servletRequestAttributes.getRequest()), target);
+        if (mode == StrictFetchMode.THROW) {
+            throw new UnplannedLazyLoadException(message);
+        }
+        log.warn(message);
+    }
+
+    private String endpointName(HttpServletRequest request) {
+        Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String handlerName = handler instanceof HandlerMethod handlerMethod ? handlerMethod.getShortLogMessage() : "view/unknown";
+        return request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI()) + " (" + handlerName + ")";
+    }
+}
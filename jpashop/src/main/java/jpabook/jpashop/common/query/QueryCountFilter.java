@@ -0,0 +1,64 @@
+package jpabook.jpashop.common.query;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 요청마다 SQL 수를 세기 시작하고, 요청이 끝나면 메트릭으로 기록하는 필터
+ * 같은 SELECT가 nPlusOneThreshold번 이상 반복되면 1 + N 문제로 보고 경고 로그를 남긴다.
+ * (응답 헤더는 응답 body를 쓰기 전에 넣어야 하므로 QueryCountResponseAdvice에서 처리)
+ */
+@Slf4j
+@Component
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    private final int nPlusOneThreshold;
+
+    public QueryCountFilter(MeterRegistry meterRegistry,
+                            @Value("${jpashop.query-counter.n-plus-one-threshold:6}") int nPlusOneThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        QueryCounter.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            record(request, QueryCounter.stop());
+        }
+    }
+
+    private void record(HttpServletRequest request, QueryStats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+
+        DistributionSummary.builder("jpashop.sql.statements").tag("uri", uri).register(meterRegistry).record(stats.getStatementCount());
+        DistributionSummary.builder("jpashop.sql.rows").tag("uri", uri).register(meterRegistry).record(stats.getRowCount());
+        Timer.builder("jpashop.sql.time").tag("uri", uri).register(meterRegistry).record(Duration.ofNanos(stats.getJdbcTimeNanos()));
+
+        List<String> repeatedStatements = stats.findRepeatedStatements(nPlusOneThreshold);
+        if (!repeatedStatements.isEmpty()) {
+            meterRegistry.counter("jpashop.sql.n_plus_one", "uri", uri).increment();
+            repeatedStatements.forEach(sql ->
+                    log.warn("[1 + N 의심] {} {} - 같은 SQL이 {}번 실행됨: {}",
+                            request.getMethod(), uri, stats.getCountBySql().get(sql), sql));
+        }
+    }
+}
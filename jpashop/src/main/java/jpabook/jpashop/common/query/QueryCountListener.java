@@ -0,0 +1,34 @@
+package jpabook.jpashop.common.query;
+
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * p6spy가 JDBC 호출마다 알려주는 이벤트로 SQL 수, row 수, 실행 시간을 센다
+ * p6spy-spring-boot-starter는 JdbcEventListener 타입의 빈을 자동으로 등록해준다.
+ * (SimpleJdbcEventListener는 execute, executeQuery, executeUpdate, executeBatch 이벤트를 onAfterAnyExecute() 하나로 모아준다)
+ * (하이버네이트 StatementInspector는 SQL 문자열만 볼 수 있어서 row 수와 실행 시간을 알 수 없다)
+ */
+@Component
+public class QueryCountListener extends SimpleJdbcEventListener {
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        QueryStats stats = QueryCounter.current();
+        if (stats != null) {
+            stats.addStatement(statementInformation.getSql(), timeElapsedNanos); // getSql()은 바인드 값이 ?인 SQL
+        }
+    }
+
+    @Override
+    public void onAfterResultSetNext(ResultSetInformation resultSetInformation, long timeElapsedNanos, boolean hasNext, SQLException e) {
+        QueryStats stats = QueryCounter.current();
+        if (stats != null && hasNext) {
+            stats.addRow();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package jpabook.jpashop.common.query;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * API 응답 헤더에 이번 요청에서 실행된 SQL 통계를 넣어준다
+ * 컨트롤러(DTO 변환 포함)가 끝나고 body를 쓰기 직전에 호출되므로, 지연로딩으로 나간 SQL까지 포함된다.
+ *
+ * X-Query-Count : 실행한 SQL 수
+ * X-Query-Rows : 읽은 row 수
+ * X-Query-Time-Ms : JDBC 실행 시간 합계
+ * X-Query-N-Plus-One : 반복 실행된 SELECT 종류 수(0이 아니면 1 + N 문제 의심)
+ */
+@RestControllerAdvice
+public class QueryCountResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final String QUERY_COUNT_HEADER = "X-Query-Count";
+    public static final String QUERY_ROWS_HEADER = "X-Query-Rows";
+    public static final String QUERY_TIME_HEADER = "X-Query-Time-Ms";
+    public static final String N_PLUS_ONE_HEADER = "X-Query-N-Plus-One";
+
+    private final int nPlusOneThreshold;
+
+    public QueryCountResponseAdvice(@Value("${jpashop.query-counter.n-plus-one-threshold:6}") int nPlusOneThreshold) {
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        QueryStats stats = QueryCounter.current();
+        if (stats != null) {
+            response.getHeaders().set(QUERY_COUNT_HEADER, String.valueOf(stats.getStatementCount()));
+            response.getHeaders().set(QUERY_ROWS_HEADER, String.valueOf(stats.getRowCount()));
+            response.getHeaders().set(QUERY_TIME_HEADER, String.valueOf(stats.getJdbcTimeMillis()));
+            response.getHeaders().set(N_PLUS_ONE_HEADER, String.valueOf(stats.findRepeatedStatements(nPlusOneThreshold).size()));
+        }
+        return body;
+    }
+}
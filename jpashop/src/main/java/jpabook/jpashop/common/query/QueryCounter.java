@@ -0,0 +1,29 @@
+package jpabook.jpashop.common.query;
+
+/**
+ * 현재 스레드(요청)에서 실행되는 SQL을 세기 위한 ThreadLocal 보관소
+ * QueryCountFilter가 요청 시작 시 start(), 끝날 때 stop()을 호출하고
+ * 그 사이에 QueryCountListener(p6spy)가 current()에 SQL 실행 정보를 쌓는다.
+ */
+public final class QueryCounter {
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private QueryCounter() {
+    }
+
+    public static void start() {
+        CURRENT.set(new QueryStats());
+    }
+
+    /* 세는 중이 아니면 null */
+    public static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    public static QueryStats stop() {
+        QueryStats stats = CURRENT.get();
+        CURRENT.remove();
+        return stats;
+    }
+}
@@ -0,0 +1,53 @@
+package jpabook.jpashop.common.query;
+
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * HTTP 요청 하나 동안 실행된 SQL 통계(SQL 수, 읽은 row 수, JDBC 실행 시간)
+ * 바인드 파라미터가 빠진 SQL(?로 표시된 형태)별 실행 횟수도 같이 모아서
+ * 같은 모양의 SQL이 값만 바뀌어서 반복 실행되는 경우(1 + N 문제)를 찾는다.
+ * 1 + N은 지연로딩 조회에서 생기므로 SELECT만 본다(장바구니 주문의 상품별 재고 차감 UPDATE처럼 의도한 반복은 제외)
+ */
+@Getter
+public class QueryStats {
+
+    private long statementCount;
+    private long rowCount;
+    private long jdbcTimeNanos;
+    private final Map<String, Integer> countBySql = new HashMap<>();
+
+    void addStatement(String sql, long elapsedNanos) {
+        statementCount++;
+        jdbcTimeNanos += elapsedNanos;
+        if (sql != null) {
+            countBySql.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    void addRow() {
+        rowCount++;
+    }
+
+    public long getJdbcTimeMillis() {
+        return jdbcTimeNanos / 1_000_000;
+    }
+
+    /* threshold번 이상 반복된 SELECT ==> 1 + N 문제로 의심 */
+    public List<String> findRepeatedStatements(int threshold) {
+        return countBySql.entrySet().stream()
+                .filter(entry -> entry.getValue() >= threshold)
+                .filter(entry -> isSelect(entry.getKey()))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    private static boolean isSelect(String sql) {
+        String trimmed = sql.stripLeading();
+        return trimmed.regionMatches(true, 0, "select", 0, 6) || trimmed.regionMatches(true, 0, "with", 0, 4);
+    }
+}
@@ -0,0 +1,80 @@
+package jpabook.jpashop.common.retry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.OptimisticLockException;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @RetryOnOptimisticLock 메서드를 낙관적 락 충돌 시 다시 실행하는 AOP
+ *
+ * 1. 트랜잭션 AOP(@Transactional, 우선순위 LOWEST_PRECEDENCE)보다 바깥에서 감싼다
+ *    ==> 재시도마다 새 트랜잭션 + 새 영속성 컨텍스트에서 최신 version을 다시 읽는다(커밋 시점 flush에서 나는 충돌도 잡힌다)
+ * 2. 이미 바깥 트랜잭션 안에서 호출됐다면 재시도하지 않고 그대로 던진다(바깥 트랜잭션 전체를 다시 해야 하므로)
+ * 3. 최대 max-attempts번, 대기 시간은 initial-backoff부터 2배씩 늘리되 max-backoff를 넘지 않고
+ *    0 ~ 대기 시간 사이의 랜덤 값(full jitter)만큼 기다린다 ==> 충돌한 요청들이 같은 순간에 다시 부딪히지 않도록
+ * 4. 재시도 횟수는 jpashop.optimistic_lock.retries, 재시도 후에도 실패한 횟수는 jpashop.optimistic_lock.failures 메트릭으로 남긴다
+ *
+ * 비관적 락(SELECT ... FOR UPDATE)처럼 충돌이 없을 때도 줄을 세우지 않으므로, 충돌이 드문 수정(상품 수정, 주문 취소)에 맞는 방식이다
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class OptimisticLockRetryAspect {
+
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public OptimisticLockRetryAspect(MeterRegistry meterRegistry,
+                                     @Value("${jpashop.retry.max-attempts:3}") int maxAttempts,
+                                     @Value("${jpashop.retry.initial-backoff:20ms}") Duration initialBackoff,
+                                     @Value("${jpashop.retry.max-backoff:200ms}") Duration maxBackoff) {
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMillis = initialBackoff.toMillis();
+        this.maxBackoffMillis = maxBackoff.toMillis();
+    }
+
+    @Around("@annotation(jpabook.jpashop.common.retry.RetryOnOptimisticLock)")
+    public Object retry(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+
+        String method = joinPoint.getSignature().toShortString();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                if (attempt >= maxAttempts) {
+                    meterRegistry.counter("jpashop.optimistic_lock.failures", "method", method).increment();
+                    throw e;
+                }
+                meterRegistry.counter("jpashop.optimistic_lock.retries", "method", method).increment();
+                long backoff = backoffMillis(attempt);
+                log.debug("[낙관적 락 충돌] {} {}번째 시도 실패, {}ms 후 재시도", method, attempt, backoff);
+                Thread.sleep(backoff);
+            }
+        }
+    }
+
+    /* attempt번째 실패 후 기다릴 시간(full jitter) */
+    long backoffMillis(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+}
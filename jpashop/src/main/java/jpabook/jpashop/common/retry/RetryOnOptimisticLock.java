@@ -0,0 +1,16 @@
+package jpabook.jpashop.common.retry;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 낙관적 락 충돌(@Version 불일치)이 나면 메서드 전체(트랜잭션 포함)를 다시 실행한다
+ * 재시도할 때마다 새 트랜잭션에서 최신 데이터를 다시 읽어야 하므로 @Transactional 메서드에 같이 붙인다
+ * 재시도 횟수, 대기 시간은 jpashop.retry.* 설정을 따른다(OptimisticLockRetryAspect)
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnOptimisticLock {
+}
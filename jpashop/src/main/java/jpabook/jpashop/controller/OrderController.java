@@ -1,18 +1,27 @@
 package jpabook.jpashop.controller;
 
 import jpabook.jpashop.domain.Member;
-import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderSearch;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.order.query.OrderListDto;
 import jpabook.jpashop.service.ItemService;
 import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderIngestionPipeline;
 import jpabook.jpashop.service.OrderService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @Controller
 @RequiredArgsConstructor
@@ -21,6 +30,7 @@ public class OrderController {
     private final OrderService orderService;
     private final MemberService memberService;
     private final ItemService itemService;
+    private final OrderIngestionPipeline orderIngestionPipeline;
 
     @GetMapping("/order")
     public String createForm(Model model) {
@@ -34,20 +44,35 @@ public class OrderController {
     /**
      * 조회가 아닌 핵심 비즈니스 로직(수정/삭제/추가)는 컨트롤러에서 직접 처리하기 보다는
      * 파라미터(식별자 O, 엔티티 X)를 넘겨서 서비스단에서 처리하는게 유지/보수하기 편하다
+     *
+     * 주문 묶음 처리(jpashop.order-ingestion.enabled)를 켜면 주문이 커밋될 때까지 요청 스레드를 붙잡지 않는다(비동기 요청 처리)
      */
     @PostMapping("/order")
-    public String order(@RequestParam("memberId") Long memberId,
-                        @RequestParam("itemId") Long itemId,
-                        @RequestParam("count") int count) {
+    public CompletableFuture<String> order(@RequestParam("memberId") Long memberId,
+                                           @RequestParam("itemId") Long itemId,
+                                           @RequestParam("count") int count) {
         //TODO:여러개의 상품을 한번에 주문할 수 있도록 변경해보기
-        orderService.order(memberId, itemId, count);
-        return "redirect:/orders";
+        return orderIngestionPipeline.submit(memberId, itemId, count)
+                .thenApply(orderId -> "redirect:/orders");
+    }
+
+    /**
+     * 주문 대기열이 가득 찼거나 서버가 종료 중이라 주문을 받지 못한 경우
+     * 주문은 만들어지지 않았으므로 500 대신 다시 시도해도 되는 503(Retry-After)으로 응답한다
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> orderRejected(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
     }
 
     @GetMapping("/orders")
-    public String orderList(@ModelAttribute("orderSearch") OrderSearch orderSearch, Model model) {
+    public String orderList(@ModelAttribute("orderSearch") OrderSearch orderSearch,
+                            @PageableDefault(size = 20) Pageable pageable, Model model) {
         //단순한 조회인 경우, 컨트롤러에서 바로 레포지토리를 주입받아서 사용해도 무관
-        List<Order> orders = orderService.findOrders(orderSearch);
+        //엔티티(Order)를 넘기면 화면을 그리면서 회원, 주문상품, 상품을 지연로딩하므로 화면에 필요한 칼럼만 DTO로 조회
+        Page<OrderListDto> orders = orderService.findOrderList(orderSearch, pageable);
         model.addAttribute("orders", orders);
         return "order/orderList";
     }
@@ -0,0 +1,246 @@
+package jpabook.jpashop.datagen;
+
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 벤치마크/부하 테스트용 대량 샘플 데이터 생성기(initDb의 주문 2건으로는 운영 규모의 동작을 알 수 없다)
+ *
+ * scale factor 1(SF1) 기준: 회원 10만, 상품 1만, 주문 100만, 주문상품 약 300만, 카테고리 트리 10 x 10 x 10
+ * 1. 같은 seed면 항상 같은 데이터를 만든다(SplittableRandom)
+ * 2. 엔티티/영속성 컨텍스트를 거치지 않고 JdbcTemplate 배치 INSERT로 CHUNK_SIZE개씩 넣는다(트랜잭션도 CHUNK 단위)
+ * 3. 실제 쇼핑몰처럼 쏠림을 준다 - 인기 상품(hot-item-skew), 자주 사는 회원(heavy-buyer-skew)을 지프 분포로 뽑는다
+ * 4. id는 ID_OFFSET(10억)부터 사용해서 시퀀스로 만드는 id(initDb, 화면/API로 만든 데이터)와 겹치지 않는다
+ *
+ * 주의) 엔티티 매핑(칼럼)이 바뀌면 여기 INSERT 문도 같이 바꿔야 한다
+ */
+@Slf4j
+@Component
+public class DataGenerator {
+
+    public static final long ID_OFFSET = 1_000_000_000L;
+
+    private static final int BASE_MEMBERS = 100_000;
+    private static final int BASE_ITEMS = 10_000;
+    private static final int BASE_ORDERS = 1_000_000;
+    private static final int CATEGORY_FAN_OUT = 10; // 대분류 10 x 중분류 10 x 소분류 10
+    private static final int MAX_LINES_PER_ORDER = 5; // 주문당 주문상품 1~5개(평균 3개)
+    private static final int CHUNK_SIZE = 10_000;
+    private static final LocalDateTime BASE_DATE = LocalDateTime.of(2024, 1, 1, 0, 0); // 주문일시도 항상 같게
+
+    private static final String[] CITIES = {"Seoul", "Busan", "Incheon", "Daegu", "Daejeon", "Gwangju", "Ulsan", "Suwon"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long seed;
+    private final double hotItemSkew;
+    private final double heavyBuyerSkew;
+
+    public DataGenerator(JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${jpashop.datagen.seed:42}") long seed,
+                         @Value("${jpashop.datagen.hot-item-skew:1.1}") double hotItemSkew,
+                         @Value("${jpashop.datagen.heavy-buyer-skew:0.8}") double heavyBuyerSkew) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.seed = seed;
+        this.hotItemSkew = hotItemSkew;
+        this.heavyBuyerSkew = heavyBuyerSkew;
+    }
+
+    public void generate(double scaleFactor) {
+        int memberCount = Math.max(1, (int) Math.round(BASE_MEMBERS * scaleFactor));
+        int itemCount = Math.max(1, (int) Math.round(BASE_ITEMS * scaleFactor));
+        int orderCount = Math.max(1, (int) Math.round(BASE_ORDERS * scaleFactor));
+        log.info("샘플 데이터 생성 시작 SF={}, 회원={}, 상품={}, 주문={}", scaleFactor, memberCount, itemCount, orderCount);
+        long start = System.currentTimeMillis();
+
+        SplittableRandom random = new SplittableRandom(seed);
+        insertMembers(memberCount);
+        int[] prices = insertItems(itemCount, random);
+        insertCategories(itemCount);
+        long orderItemCount = insertOrders(orderCount, memberCount, prices, random);
+
+        log.info("샘플 데이터 생성 완료, 주문상품={}, {}ms", orderItemCount, System.currentTimeMillis() - start);
+    }
+
+    private void insertMembers(int memberCount) {
+        List<Object[]> rows = new ArrayList<>(CHUNK_SIZE);
+        for (int i = 0; i < memberCount; i++) {
+            rows.add(new Object[]{ID_OFFSET + i, memberName(i), city(i), "street-" + (i % 1000), zipcode(i), 0L});
+            if (rows.size() == CHUNK_SIZE) {
+                batchInsert("INSERT INTO member (member_id, name, city, street, zipcode, version) VALUES (?, ?, ?, ?, ?, ?)", rows);
+            }
+        }
+        batchInsert("INSERT INTO member (member_id, name, city, street, zipcode, version) VALUES (?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    /* 상품 60% Book, 25% Album, 15% Movie, 가격 5,000 ~ 100,000원(100원 단위) */
+    private int[] insertItems(int itemCount, SplittableRandom random) {
+        String sql = "INSERT INTO item (item_id, dtype, name, price, stock_quantity, author, isbn, artist, etc, director, actor, version) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+        int[] prices = new int[itemCount];
+        List<Object[]> rows = new ArrayList<>(CHUNK_SIZE);
+        for (int i = 0; i < itemCount; i++) {
+            prices[i] = 5_000 + random.nextInt(951) * 100;
+            int type = random.nextInt(100);
+            long id = ID_OFFSET + i;
+            if (type < 60) {
+                rows.add(new Object[]{id, "Book", "book-" + i, prices[i], 1_000_000, "author-" + (i % 500), "isbn-" + i, null, null, null, null});
+            } else if (type < 85) {
+                rows.add(new Object[]{id, "Album", "album-" + i, prices[i], 1_000_000, null, null, "artist-" + (i % 300), null, null, null});
+            } else {
+                rows.add(new Object[]{id, "Movie", "movie-" + i, prices[i], 1_000_000, null, null, null, null, "director-" + (i % 200), "actor-" + (i % 400)});
+            }
+            if (rows.size() == CHUNK_SIZE) {
+                batchInsert(sql, rows);
+            }
+        }
+        batchInsert(sql, rows);
+        return prices;
+    }
+
+    /* 대분류 -> 중분류 -> 소분류 트리, 상품은 소분류 하나에 속한다 */
+    private void insertCategories(int itemCount) {
+        List<Object[]> categories = new ArrayList<>();
+        List<Long> leafIds = new ArrayList<>();
+        long nextId = ID_OFFSET;
+        for (int top = 0; top < CATEGORY_FAN_OUT; top++) {
+            long topId = nextId++;
+            categories.add(new Object[]{topId, "category-" + top, null});
+            for (int middle = 0; middle < CATEGORY_FAN_OUT; middle++) {
+                long middleId = nextId++;
+                categories.add(new Object[]{middleId, "category-" + top + "-" + middle, topId});
+                for (int leaf = 0; leaf < CATEGORY_FAN_OUT; leaf++) {
+                    long leafId = nextId++;
+                    categories.add(new Object[]{leafId, "category-" + top + "-" + middle + "-" + leaf, middleId});
+                    leafIds.add(leafId);
+                }
+            }
+        }
+        batchInsert("INSERT INTO category (category_id, name, parent_id) VALUES (?, ?, ?)", categories);
+
+        List<Object[]> categoryItems = new ArrayList<>(CHUNK_SIZE);
+        for (int i = 0; i < itemCount; i++) {
+            categoryItems.add(new Object[]{leafIds.get(i % leafIds.size()), ID_OFFSET + i});
+            if (categoryItems.size() == CHUNK_SIZE) {
+                batchInsert("INSERT INTO category_item (category_id, item_id) VALUES (?, ?)", categoryItems);
+            }
+        }
+        batchInsert("INSERT INTO category_item (category_id, item_id) VALUES (?, ?)", categoryItems);
+    }
+
+    /**
+     * 주문 1건 == 배송 1건 + 주문상품 1~5개 + 주문 요약 1건
+     * 주문상품 id는 주문과 따로 세기 때문에 순서대로 증가한다
+     */
+    private long insertOrders(int orderCount, int memberCount, int[] prices, SplittableRandom random) {
+        ZipfSampler buyers = new ZipfSampler(memberCount, heavyBuyerSkew, random);
+        ZipfSampler hotItems = new ZipfSampler(prices.length, hotItemSkew, random);
+        int dateRangeSeconds = 365 * 24 * 60 * 60;
+
+        List<Object[]> deliveries = new ArrayList<>(CHUNK_SIZE);
+        List<Object[]> orders = new ArrayList<>(CHUNK_SIZE);
+        List<Object[]> orderItems = new ArrayList<>(CHUNK_SIZE * 3);
+        List<Object[]> summaries = new ArrayList<>(CHUNK_SIZE);
+        long orderItemId = ID_OFFSET;
+
+        for (int i = 0; i < orderCount; i++) {
+            long orderId = ID_OFFSET + i;
+            int member = buyers.sample(random);
+            Timestamp orderDate = Timestamp.valueOf(BASE_DATE.plusSeconds(random.nextInt(dateRangeSeconds)));
+            String status = random.nextInt(100) < 5 ? OrderStatus.CANCLE.name() : OrderStatus.ORDER.name();
+            String deliveryStatus = random.nextInt(100) < 70 ? DeliveryStatus.COMPLETED.name() : DeliveryStatus.READY.name();
+
+            int lineCount = 1 + random.nextInt(MAX_LINES_PER_ORDER);
+            int[] lineItems = new int[lineCount];
+            int totalPrice = 0;
+            for (int line = 0; line < lineCount; line++) {
+                int item = distinctItem(hotItems, random, lineItems, line);
+                int count = 1 + random.nextInt(3);
+                lineItems[line] = item;
+                totalPrice += prices[item] * count;
+                orderItems.add(new Object[]{orderItemId++, ID_OFFSET + item, orderId, prices[item], count});
+            }
+
+            deliveries.add(new Object[]{orderId, city(member), "street-" + (member % 1000), zipcode(member), deliveryStatus});
+            orders.add(new Object[]{orderId, ID_OFFSET + member, orderId, orderDate, status, totalPrice});
+            summaries.add(new Object[]{orderId, ID_OFFSET + member, memberName(member), city(member), "street-" + (member % 1000),
+                    zipcode(member), orderDate, status, lineCount, totalPrice});
+
+            if (orders.size() == CHUNK_SIZE) {
+                insertOrderChunk(deliveries, orders, orderItems, summaries);
+            }
+        }
+        insertOrderChunk(deliveries, orders, orderItems, summaries);
+        return orderItemId - ID_OFFSET;
+    }
+
+    /* 한 주문 안에서는 같은 상품이 두 줄로 나오지 않게(OrderService도 같은 상품은 합친다), 몇 번 다시 뽑아도 겹치면 그대로 둔다 */
+    private int distinctItem(ZipfSampler hotItems, SplittableRandom random, int[] lineItems, int lineCount) {
+        int item = hotItems.sample(random);
+        for (int retry = 0; retry < 3 && contains(lineItems, lineCount, item); retry++) {
+            item = hotItems.sample(random);
+        }
+        return item;
+    }
+
+    private boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /* FK 순서(배송 -> 주문 -> 주문상품)대로 CHUNK 하나를 트랜잭션 한 번으로 */
+    private void insertOrderChunk(List<Object[]> deliveries, List<Object[]> orders, List<Object[]> orderItems, List<Object[]> summaries) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate("INSERT INTO delivery (delivery_id, city, street, zipcode, delivery_status) VALUES (?, ?, ?, ?, ?)", deliveries);
+            jdbcTemplate.batchUpdate("INSERT INTO orders (order_id, member_id, delivery_id, order_date, status, total_price, version) VALUES (?, ?, ?, ?, ?, ?, 0)", orders);
+            jdbcTemplate.batchUpdate("INSERT INTO order_item (order_item_id, item_id, order_id, order_price, count, stock_pending) VALUES (?, ?, ?, ?, ?, FALSE)", orderItems);
+            jdbcTemplate.batchUpdate("INSERT INTO order_summary (order_id, member_id, member_name, city, street, zipcode, order_date, status, item_count, total_price) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", summaries);
+        });
+        deliveries.clear();
+        orders.clear();
+        orderItems.clear();
+        summaries.clear();
+    }
+
+    private void batchInsert(String sql, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, rows));
+        rows.clear();
+    }
+
+    private static String memberName(int member) {
+        return "member-" + member;
+    }
+
+    private static String city(int member) {
+        return CITIES[member % CITIES.length];
+    }
+
+    private static String zipcode(int member) {
+        return String.format("%05d", member % 100_000);
+    }
+}
@@ -0,0 +1,52 @@
+package jpabook.jpashop.datagen;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * 0 ~ n-1 사이의 값을 지프(Zipf) 분포로 뽑는 클래스 - 소수의 값이 대부분 뽑힌다(인기 상품, 헤비 구매자)
+ * P(rank k) ∝ 1 / (k + 1)^exponent, exponent가 클수록 쏠림이 심하다(0이면 균등 분포)
+ *
+ * rank 0이 항상 id가 가장 작은 값이 되지 않도록 rank -> 값을 seed로 섞어둔다
+ */
+public class ZipfSampler {
+
+    private final double[] cumulative;
+    private final int[] valueByRank;
+
+    public ZipfSampler(int n, double exponent, SplittableRandom random) {
+        this.cumulative = new double[n];
+        double sum = 0;
+        for (int rank = 0; rank < n; rank++) {
+            sum += 1.0 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < n; rank++) {
+            cumulative[rank] /= sum;
+        }
+
+        this.valueByRank = new int[n];
+        for (int i = 0; i < n; i++) {
+            valueByRank[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) { // Fisher-Yates
+            int j = random.nextInt(i + 1);
+            int tmp = valueByRank[i];
+            valueByRank[i] = valueByRank[j];
+            valueByRank[j] = tmp;
+        }
+    }
+
+    public int sample(SplittableRandom random) {
+        int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+        if (rank < 0) {
+            rank = -rank - 1;
+        }
+        return valueByRank[Math.min(rank, valueByRank.length - 1)];
+    }
+
+    /* 가장 많이 뽑히는 값(테스트, 로그용) */
+    public int hottest() {
+        return valueByRank[0];
+    }
+}
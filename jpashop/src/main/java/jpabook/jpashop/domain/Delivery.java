@@ -1,6 +1,5 @@
 package jpabook.jpashop.domain;
 
-import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -10,13 +9,16 @@ import jakarta.persistence.*;
 @Getter @Setter
 public class Delivery {
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "delivery_seq_generator")
+    @SequenceGenerator(name = "delivery_seq_generator", sequenceName = "delivery_seq", allocationSize = IdAllocation.ALLOCATION_SIZE)
     @Column(name = "delivery_id") // DB에 표현될 칼럼명
     private Long id;
 
-    @JsonIgnore
-    @OneToOne(mappedBy = "delivery", fetch = FetchType.LAZY) // 모든 연관관계는 지연로딩으로 설정한다
-    private Order order;
+    /*
+    주문 -> 배송 단방향으로 둔다(Order.delivery가 연관관계의 주인)
+    주인이 아닌 쪽의 @OneToOne(mappedBy)은 프록시를 만들 수 없어서 LAZY로 설정해도 배송을 조회할 때마다 주문을 따로 조회한다 ==> 배송 N건이면 N번 추가 쿼리
+    배송에서 주문으로 가야 하는 곳이 없으므로 반대쪽 매핑은 두지 않는다
+    */
 
     @Embedded
     private Address address;
@@ -0,0 +1,15 @@
+package jpabook.jpashop.domain;
+
+/**
+ * 주문 쓰기 경로(Order, OrderItem, Delivery)의 시퀀스 할당 크기
+ * 시퀀스를 한 번 호출할 때 ALLOCATION_SIZE개의 id를 미리 받아두고 메모리에서 나눠주기 때문에
+ * 주문을 저장할 때마다 시퀀스를 조회하지 않는다(pooled-lo 옵티마이저는 application.yml에서 설정).
+ * DB 시퀀스의 increment와 같아야 하므로 값을 바꿀 때는 스키마(시퀀스)도 같이 바꿔야 한다.
+ */
+public final class IdAllocation {
+
+    public static final int ALLOCATION_SIZE = 100;
+
+    private IdAllocation() {
+    }
+}
@@ -5,11 +5,16 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_member_name", columnNames = "name")) // 중복 가입 방지 + 회원 이름 검색(findByName, 주문 검색) 인덱스
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "member") // 자주 안 바뀌는 엔티티라서 2차 캐시 대상
 @Getter
 @Setter
 public class Member {
@@ -25,6 +30,10 @@ public class Member {
     @Embedded
     private Address address;
 
+    @JsonIgnore
+    @Version
+    private Long version; // 낙관적 락 버전 - 이름 변경(MemberService.update, 일괄 변경)끼리 덮어쓰지 않도록
+
     /**
      * Order 클래스의 private Member member;에서 따온 것, JoinColum 방식(DB 칼럼명을 씀)과 헷갈리지 않도록 조심!
      * mappedBy는 양방향 관계에서 주인이 아닌 객체에서 사용한다.(읽기만 가능)
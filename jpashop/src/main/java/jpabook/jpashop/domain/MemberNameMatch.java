@@ -0,0 +1,10 @@
+package jpabook.jpashop.domain;
+
+/**
+ * 주문 검색에서 회원 이름을 비교하는 방식
+ */
+public enum MemberNameMatch {
+    EXACT, // name = ? (유니크 인덱스 사용)
+    PREFIX, // name LIKE '검색어%' (앞부분이 고정이라 인덱스 범위 검색 가능)
+    CONTAINS // 검색어를 포함하는 이름, LIKE '%검색어%'는 인덱스를 못 타므로 MemberNameIndex(n-gram)로 회원 id를 먼저 찾는다
+}
@@ -13,12 +13,13 @@ import static jpabook.jpashop.domain.OrderStatus.CANCLE;
 import static jpabook.jpashop.domain.OrderStatus.ORDER;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = @Index(name = "idx_orders_status_order_date", columnList = "status, orderDate")) // 상태별 주문 검색 + 주문일시 정렬
 @Getter
 @Setter
 public class Order {
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq_generator")
+    @SequenceGenerator(name = "orders_seq_generator", sequenceName = "orders_seq", allocationSize = IdAllocation.ALLOCATION_SIZE)
     @Column(name = "order_id")
     private Long id;
 
@@ -45,6 +46,18 @@ public class Order {
     @Enumerated(EnumType.STRING)
     private OrderStatus status; // 주문상태 [ORDER, CANCLE]
 
+    /**
+     * 전체 주문 가격(주문상품 가격 * 수량의 합) - 조회는 getter(@Getter)로 한다
+     * 예전 방식인 orderItems.stream().mapToInt(OrderItem::getTotalPrice).sum()처럼 매번 orderItems를 돌면서 계산하면 주문 N건의 총액을 보여줄 때 지연로딩 컬렉션 N개를 초기화해야 하므로
+     * addOrderItem()에서 같이 누적해서 칼럼으로 저장한다 ==> 총액 조회, 총액 정렬, 매출 집계에 order_item 조인이 필요 없다
+     * 주문을 취소해도 주문 금액 자체는 바뀌지 않으므로 그대로 두고, 매출에서 뺄 때는 status로 거른다
+     */
+    private int totalPrice;
+
+    @JsonIgnore
+    @Version
+    private Long version; // 낙관적 락 버전 - 동시에 취소해도 한쪽만 성공
+
     /* 연관관계 편의 메소드 생성, 양방향 관계에서 주인쪽(FK소유)에 메소드를 만들어주는게 좋다*/
     public void setMember(Member member) {
         this.member = member;
@@ -54,11 +67,11 @@ public class Order {
     public void addOrderItem(OrderItem orderItem) {
         orderItems.add(orderItem);
         orderItem.setOrder(this);
+        totalPrice += orderItem.getTotalPrice();
     }
 
     public void setDelivery(Delivery delivery) {
         this.delivery = delivery;
-        delivery.setOrder(this);
     }
 
     /* 비즈니스 로직 - 생성 메서드, OrderItem...은 여러개를 의미한다 */
@@ -79,6 +92,9 @@ public class Order {
         if (delivery.getDeliveryStatus() == DeliveryStatus.COMPLETED) {
             throw new IllegalStateException("이미 배송완료된 상품은 취소가 불가능합니다.");
         }
+        if (status == CANCLE) {
+            throw new IllegalStateException("이미 취소된 주문입니다."); // 재시도나 중복 요청으로 재고가 두 번 원복되지 않도록
+        }
         this.setStatus(CANCLE);
         /**
          * this.orderItems로 써도 되지만 생략하는 이유:
@@ -89,17 +105,4 @@ public class Order {
             orderItem.cancel(); // orderItem의 재고 수량을 원복하는 메소드 처리
         }
     }
-
-    /* 조회 로직 - 전체 주문 가격을 조회하는 메서드 */
-    public int getTotalPrice() {
-//        int totalPrice = 0;
-//        for (OrderItem orderItem : orderItems) {
-//            totalPrice += orderItem.getTotalPrice();
-//        }
-//        return totalPrice;
-        /* stream 방식으로 하는 방법도 존재 */
-        return orderItems.stream()
-                .mapToInt(OrderItem::getTotalPrice)
-                .sum();
-    }
 }
\ No newline at end of file
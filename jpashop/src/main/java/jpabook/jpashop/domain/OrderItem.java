@@ -10,13 +10,15 @@ import lombok.Setter;
 import jakarta.persistence.*;
 
 @Entity
+@Table(indexes = @Index(name = "idx_order_item_stock_pending", columnList = "item_id, stockPending")) // 인기 상품 재고 반영 대상 조회
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class OrderItem {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_item_seq_generator")
+    @SequenceGenerator(name = "order_item_seq_generator", sequenceName = "order_item_seq", allocationSize = IdAllocation.ALLOCATION_SIZE)
     @Column(name = "order_item_id")
     private Long id;
 
@@ -33,6 +35,8 @@ public class OrderItem {
 
     private int count; // 주문 수량
 
+    private boolean stockPending; // 인기 상품 모드로 메모리에서만 재고를 차감했고, 아직 item 재고에 반영하지 않았으면 true(HotItemInventory)
+
 //    protected OrderItem(){
 //        /*
 //        OrderItem의 인스턴스를 생성할 때 '주문상품 생성 메서드'을 강제하게 위해서 만든 생성자
@@ -43,11 +47,17 @@ public class OrderItem {
 
     /* 주문상품 생성 메서드 */
     public static OrderItem createOrderItem(Item item, int orderPrice, int count) {
+        OrderItem orderItem = createReservedOrderItem(item, orderPrice, count);
+        item.removeStock(count); // 넘어온 count만큼 item에서 재고(stockQuantity)를 제거해줌
+        return orderItem;
+    }
+
+    /* 주문상품 생성 메서드 - ItemRepository.reserveStock()으로 재고를 이미 차감한 경우 */
+    public static OrderItem createReservedOrderItem(Item item, int orderPrice, int count) {
         OrderItem orderItem = new OrderItem();
         orderItem.setItem(item);
         orderItem.setOrderPrice(orderPrice);
         orderItem.setCount(count);
-        item.removeStock(count); // 넘어온 count만큼 item에서 재고(stockQuantity)를 제거해줌
         return orderItem;
     }
 
@@ -1,9 +1,12 @@
 package jpabook.jpashop.domain;
 
 import lombok.Getter;
+import lombok.Setter;
 
 @Getter
+@Setter // 검색 조건을 쿼리 파라미터(@ModelAttribute)로 바인딩하려면 setter가 필요
 public class OrderSearch {
     private String memberName; //회원이름
+    private MemberNameMatch memberNameMatch = MemberNameMatch.EXACT; //회원이름 비교 방식[EXACT, PREFIX, CONTAINS]
     private OrderStatus orderStatus; //주문상태[ORDER, CANCLE]
 }
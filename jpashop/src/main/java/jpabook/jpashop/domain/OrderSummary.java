@@ -0,0 +1,64 @@
+package jpabook.jpashop.domain;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 주문 목록/검색 화면 전용 조회 모델(비정규화 테이블)
+ * 주문 목록을 보여줄 때마다 orders, member, delivery, order_item, item을 조인하고 총 금액을 다시 계산하는 대신
+ * 주문/취소할 때 OrderService가 이 테이블을 같이 갱신하고, 목록 조회는 이 테이블 하나만 인덱스로 읽는다.
+ *
+ * 연관관계를 걸지 않는 이유: 조회 모델은 조인 없이 읽는 것이 목적이므로 order_id, member_id 값만 복사해둔다
+ */
+@Entity
+@Table(name = "order_summary", indexes = {
+        @Index(name = "idx_order_summary_status_date", columnList = "status, orderDate"),
+        @Index(name = "idx_order_summary_member_name", columnList = "memberName")
+})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class OrderSummary {
+
+    @Id
+    @Column(name = "order_id")
+    private Long id; // Order와 같은 id를 그대로 사용
+
+    private Long memberId;
+
+    private String memberName;
+
+    @Embedded
+    private Address address; // 배송지
+
+    private LocalDateTime orderDate;
+
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+
+    private int itemCount; // 주문상품 종류 수
+
+    private int totalPrice;
+
+    /* 생성 메서드 - 주문을 저장한 직후(id 할당 이후)에 호출 */
+    public static OrderSummary from(Order order) {
+        OrderSummary orderSummary = new OrderSummary();
+        orderSummary.id = order.getId();
+        orderSummary.memberId = order.getMember().getId();
+        orderSummary.memberName = order.getMember().getName();
+        orderSummary.address = order.getDelivery().getAddress();
+        orderSummary.orderDate = order.getOrderDate();
+        orderSummary.status = order.getStatus();
+        orderSummary.itemCount = order.getOrderItems().size();
+        orderSummary.totalPrice = order.getTotalPrice();
+        return orderSummary;
+    }
+
+    /* 비즈니스 로직 - 주문 취소를 반영 */
+    public void cancel() {
+        this.status = OrderStatus.CANCLE;
+    }
+}
@@ -5,6 +5,8 @@ import jpabook.jpashop.domain.Category;
 import jpabook.jpashop.exception.NotEnoughStockException;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import jakarta.persistence.*;
 import java.util.ArrayList;
@@ -18,6 +20,8 @@ import java.util.List;
  */
 //@BatchSize(size = 1000) // XxxToOne인 경우 필드가 아닌 엔티티에 BatchSize를 작성하자
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "item") // 주문할 때마다 조회하는 엔티티라서 2차 캐시 대상
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @Getter
 @Setter
@@ -34,6 +38,14 @@ public abstract class Item {
 
     private int stockQuantity;
 
+    /**
+     * 낙관적 락 버전 - 변경 감지 UPDATE에 "WHERE version = ?"가 붙어서, 그 사이 다른 트랜잭션이 바꿨으면 덮어쓰지 않고 OptimisticLockException
+     * 재고를 바꾸는 벌크 UPDATE(ItemRepository.decreaseStock())도 version을 같이 올린다
+     */
+    @JsonIgnore
+    @Version
+    private Long version;
+
     @JsonIgnore
     @ManyToMany(mappedBy = "items")
     private List<Category> categories = new ArrayList<>(); // 컬렉션은 필드에서 초기화하자
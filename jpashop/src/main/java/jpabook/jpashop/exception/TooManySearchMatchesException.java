@@ -0,0 +1,12 @@
+package jpabook.jpashop.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST) // 검색어를 더 구체적으로 입력해야 하는 요청 문제이므로 400
+public class TooManySearchMatchesException extends RuntimeException {
+
+    public TooManySearchMatchesException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package jpabook.jpashop.exception;
+
+public class UnplannedLazyLoadException extends RuntimeException {
+
+    public UnplannedLazyLoadException(String message) {
+        super(message);
+    }
+}
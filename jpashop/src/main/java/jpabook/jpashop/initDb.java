@@ -1,8 +1,10 @@
 package jpabook.jpashop;
 
+import jpabook.jpashop.datagen.DataGenerator;
 import jpabook.jpashop.domain.*;
 import jpabook.jpashop.domain.item.Book;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,17 +22,28 @@ import jakarta.persistence.EntityManager;
  * Eom (Member)
  * - Spring Part1
  * - Spring Part2
+ *
+ * jpashop.datagen.scale-factor가 0보다 크면 DataGenerator로 대량 샘플 데이터를 추가로 넣는다
+ * 위 2건은 화면/테스트에서 이름으로 찾아 쓰므로 그대로 둔다(대량 데이터는 id가 10억부터라 겹치지 않음)
+ * 실행 예) java -jar jpashop.jar --jpashop.datagen.scale-factor=1
  */
 @Component
 @RequiredArgsConstructor
 public class initDb {
 
     private final InitService initService;
+    private final DataGenerator dataGenerator;
+
+    @Value("${jpashop.datagen.scale-factor:0}")
+    private double scaleFactor;
 
     @PostConstruct
     public void init() {
         initService.dbInit1();
         initService.dbInit2();
+        if (scaleFactor > 0) {
+            dataGenerator.generate(scaleFactor);
+        }
     }
 
 
@@ -57,6 +70,7 @@ public class initDb {
             Delivery delivery = createInitialDelivery(member); //TODO:실제로는 고객의 주소가 아닌 받는 사람의 배송지를 넣어야함
             Order order = Order.createOrder(member, delivery, orderItem1, orderItem2);
             entityManager.persist(order);
+            entityManager.persist(OrderSummary.from(order));
         }
 
         public void dbInit2() {
@@ -75,6 +89,7 @@ public class initDb {
             Delivery delivery = createInitialDelivery(member); //TODO:실제로는 고객의 주소가 아닌 받는 사람의 배송지를 넣어야함
             Order order = Order.createOrder(member, delivery, orderItem1, orderItem2);
             entityManager.persist(order);
+            entityManager.persist(OrderSummary.from(order));
         }
 
         private Member createInitialMember(String name, String city, String street, String zipcode) {
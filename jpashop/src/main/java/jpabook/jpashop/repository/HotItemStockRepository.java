@@ -0,0 +1,97 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jpabook.jpashop.domain.item.Item;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 인기 상품 모드(HotItemInventory)에서 item 테이블에 아직 반영하지 않은 주문상품(stockPending = true)을 다루는 리포지토리
+ * order_item이 곧 차감 내역(로그)이므로, 서버가 죽어도 커밋된 주문의 차감분은 남아 있다
+ */
+@Repository
+@RequiredArgsConstructor
+public class HotItemStockRepository {
+
+    private static final int IN_CHUNK_SIZE = 1000;
+
+    private final EntityManager entityManager;
+
+    /**
+     * 반영 대기 중인 주문상품을 item 재고에 한 번에 반영
+     * 0. item row를 비관적 락(SELECT ... FOR UPDATE)으로 먼저 잡는다 ==> 같은 상품을 반영하는 쪽(flush, 시작 시 reconcile, 다른 서버)이 겹치면 줄을 선다
+     * 1. 락을 잡은 뒤 커밋되어 보이는 대기 주문상품의 id, 수량을 읽는다(앞에서 반영한 쪽이 커밋한 결과가 보임)
+     * 2. 읽은 id 중 아직 stockPending = true인 것만 false로 바꾸고(조건부 선점), 수량 합계를 item 재고에서 UPDATE 한 번으로 뺀다
+     *    선점한 건수가 읽은 건수와 다르면 다른 쪽이 먼저 반영한 것이므로 예외로 롤백한다 ==> 두 번 빼지 않고 다음 반영 때 다시 읽는다
+     * ==> 1과 2 사이에 새로 커밋된 주문상품은 id 목록에 없으므로 다음 반영 때 처리된다(두 번 빼거나 빠뜨리지 않음)
+     * 취소된 주문의 주문상품도 같이 뺀다(취소할 때 Item.addStock()으로 이미 더했기 때문)
+     *
+     * @return item 재고에서 뺀 수량
+     */
+    public long applyPendingStock(Long itemId) {
+        entityManager.find(Item.class, itemId, LockModeType.PESSIMISTIC_WRITE);
+
+        List<Object[]> rows = entityManager.createQuery(
+                        "SELECT oi.id, oi.count FROM OrderItem oi WHERE oi.item.id = :itemId AND oi.stockPending = true", Object[].class)
+                .setParameter("itemId", itemId)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        long delta = 0;
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            ids.add((Long) row[0]);
+            delta += (Integer) row[1];
+        }
+        for (int from = 0; from < ids.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_CHUNK_SIZE, ids.size()));
+            int claimed = entityManager.createQuery("UPDATE OrderItem oi SET oi.stockPending = false WHERE oi.id IN :ids AND oi.stockPending = true")
+                    .setParameter("ids", chunk)
+                    .executeUpdate();
+            if (claimed != chunk.size()) {
+                throw new IllegalStateException("다른 곳에서 먼저 반영한 주문상품이 있습니다. itemId=" + itemId);
+            }
+        }
+        entityManager.createQuery("UPDATE Item i SET i.stockQuantity = i.stockQuantity - :delta, i.version = i.version + 1 WHERE i.id = :itemId")
+                .setParameter("delta", (int) delta)
+                .setParameter("itemId", itemId)
+                .executeUpdate();
+        return delta;
+    }
+
+    /**
+     * item 재고에 delta를 더한다(입고, 재고 수정) - applyPendingStock()으로 item row를 잠근 같은 트랜잭션에서 호출
+     * 벌크 UPDATE(대기분 반영 포함)는 영속성 컨텍스트를 거치지 않으므로, delta가 0이어도 이미 조회한 Item을 다시 읽어서 재고와 version을 맞춘다
+     */
+    public void adjustStock(Long itemId, int delta) {
+        if (delta != 0) {
+            entityManager.createQuery("UPDATE Item i SET i.stockQuantity = i.stockQuantity + :delta, i.version = i.version + 1 WHERE i.id = :itemId")
+                    .setParameter("delta", delta)
+                    .setParameter("itemId", itemId)
+                    .executeUpdate();
+        }
+        Item item = entityManager.find(Item.class, itemId);
+        if (item != null) {
+            entityManager.refresh(item);
+        }
+    }
+
+    /* 반영 대기 중인 주문상품이 남아 있는 상품 - 지금 인기 상품으로 지정되어 있지 않아도 지난 실행에서 남긴 차감분이 있을 수 있다 */
+    public List<Long> findItemIdsWithPendingStock() {
+        return entityManager.createQuery("SELECT DISTINCT oi.item.id FROM OrderItem oi WHERE oi.stockPending = true", Long.class)
+                .getResultList();
+    }
+
+    /* item 테이블의 재고(반영 대기분을 빼기 전) */
+    public int findStockQuantity(Long itemId) {
+        return entityManager.createQuery("SELECT i.stockQuantity FROM Item i WHERE i.id = :itemId", Integer.class)
+                .setParameter("itemId", itemId)
+                .getSingleResult();
+    }
+}
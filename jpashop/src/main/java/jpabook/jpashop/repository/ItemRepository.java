@@ -1,10 +1,12 @@
 package jpabook.jpashop.repository;
 
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.NotEnoughStockException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 
 import jakarta.persistence.EntityManager;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -39,4 +41,53 @@ public class ItemRepository {
                 .getResultList();
     }
 
+    /**
+     * 재고 예약(차감)
+     * Item.removeStock()처럼 조회한 재고를 자바에서 빼고 변경 감지로 반영하면(read-modify-write)
+     * 같은 상품에 동시에 주문이 들어왔을 때 한쪽의 UPDATE가 다른 쪽을 덮어써서 재고가 맞지 않게 된다(갱신 손실).
+     * 비관적 락(SELECT ... FOR UPDATE)으로 막으면 주문 트랜잭션 전체가 한 줄로 서게 되므로,
+     * UPDATE 한 문장 안에서 재고 확인과 차감을 같이 처리하고 영향받은 row 수로 성공 여부를 판단한다.
+     *
+     * @return DB와 재고가 맞춰진 영속 상태의 Item
+     */
+    public Item reserveStock(Long itemId, int quantity) {
+        decreaseStock(itemId, quantity);
+
+        // 벌크 연산은 영속성 컨텍스트를 거치지 않으므로, 이미 올라와 있던 엔티티도 DB 값으로 다시 맞춘다(SELECT 1번)
+        Item item = entityManager.getReference(Item.class, itemId);
+        entityManager.refresh(item);
+        return item;
+    }
+
+    /**
+     * 조건부 UPDATE로 재고만 차감하고, 영속성 컨텍스트는 맞추지 않는다(여러 상품을 차감한 뒤 findAllByIds()로 한번에 조회할 때 사용)
+     * 벌크 UPDATE는 @Version을 자동으로 올리지 않으므로 직접 올린다 ==> 먼저 읽어둔 Item을 변경 감지로 덮어쓰려는 쪽이 낙관적 락에 걸린다
+     */
+    public void decreaseStock(Long itemId, int quantity) {
+        int updatedCount = entityManager.createQuery(
+                        "UPDATE Item i SET i.stockQuantity = i.stockQuantity - :quantity, i.version = i.version + 1 " +
+                                "WHERE i.id = :itemId AND i.stockQuantity >= :quantity")
+                .setParameter("quantity", quantity)
+                .setParameter("itemId", itemId)
+                .executeUpdate();
+
+        if (updatedCount == 0) {
+            throw new NotEnoughStockException("Not Enough Energy(stock quantity)");
+        }
+    }
+
+    /**
+     * 여러 상품을 IN 쿼리 한 번으로 조회
+     * 영속성 컨텍스트에 이미 있던 엔티티는 쿼리로 다시 조회해도 DB 값으로 덮어쓰지 않기 때문에
+     * decreaseStock() 이후의 재고를 보려면 먼저 분리(detach)한 뒤에 조회한다(getReference()는 SQL을 실행하지 않음)
+     */
+    public List<Item> findAllByIds(Collection<Long> itemIds) {
+        for (Long itemId : itemIds) {
+            entityManager.detach(entityManager.getReference(Item.class, itemId));
+        }
+        return entityManager.createQuery("SELECT i FROM Item i WHERE i.id IN :itemIds", Item.class)
+                .setParameter("itemIds", itemIds)
+                .getResultList();
+    }
+
 }
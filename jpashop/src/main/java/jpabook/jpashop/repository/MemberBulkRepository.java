@@ -0,0 +1,110 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jpabook.jpashop.domain.Member;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+
+/**
+ * 회원 대량 가입/이름 변경용 리포지토리(MemberRepository는 Spring Data JPA 인터페이스라서 따로 만듦)
+ */
+@Repository
+public class MemberBulkRepository {
+
+    private static final int IN_CHUNK_SIZE = 1000; // IN 절 / CASE 절 하나에 넣는 최대 개수
+
+    private final EntityManager entityManager;
+    private final int batchSize;
+
+    public MemberBulkRepository(EntityManager entityManager,
+                                @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}") int batchSize) {
+        this.entityManager = entityManager;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 대량 저장 - OrderRepository.saveAll()과 같은 방식
+     * batchSize개마다 flush()로 JDBC 배치 INSERT를 보내고 clear()로 영속성 컨텍스트를 비운다(저장한 Member는 준영속 상태가 됨)
+     */
+    public void saveAll(List<Member> members) {
+        int count = 0;
+        for (Member member : members) {
+            entityManager.persist(member);
+            if (++count % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /* names 중에서 이미 가입된 이름 */
+    public Set<String> findExistingNames(Collection<String> names) {
+        Set<String> existing = new HashSet<>();
+        for (List<String> chunk : chunks(names)) {
+            existing.addAll(entityManager.createQuery("SELECT m.name FROM Member m WHERE m.name IN :names", String.class)
+                    .setParameter("names", chunk)
+                    .getResultList());
+        }
+        return existing;
+    }
+
+    /* ids 중에서 존재하는 회원의 id -> 이름 */
+    public Map<Long, String> findNamesByIds(Collection<Long> ids) {
+        Map<Long, String> nameById = new HashMap<>();
+        for (List<Long> chunk : chunks(ids)) {
+            for (Object[] row : entityManager.createQuery("SELECT m.id, m.name FROM Member m WHERE m.id IN :ids", Object[].class)
+                    .setParameter("ids", chunk)
+                    .getResultList()) {
+                nameById.put((Long) row[0], (String) row[1]);
+            }
+        }
+        return nameById;
+    }
+
+    /**
+     * 이름 일괄 변경 - 회원마다 SELECT + 변경 감지 UPDATE를 하지 않고 CASE 문으로 청크당 UPDATE 한 번
+     * UPDATE Member m SET m.name = CASE m.id WHEN :id0 THEN :name0 WHEN :id1 THEN :name1 ... END WHERE m.id IN :ids
+     * 주문 요약(order_summary)에 복사해둔 회원 이름도 같은 방식으로 바꾼다.
+     * 벌크 연산은 영속성 컨텍스트를 거치지 않는다(하이버네이트가 Member 2차 캐시 영역은 알아서 비운다)
+     * @Version도 자동으로 올라가지 않으므로 직접 올린다(먼저 읽어둔 Member로 이름을 바꾸려는 쪽이 낙관적 락에 걸리도록)
+     *
+     * @return 변경된 회원 수
+     */
+    public int renameAll(Map<Long, String> nameById) {
+        int updatedCount = 0;
+        for (List<Long> chunk : chunks(nameById.keySet())) {
+            updatedCount += caseUpdate("UPDATE Member m SET m.version = m.version + 1, m.name = ", "m.id", chunk, nameById).executeUpdate();
+            caseUpdate("UPDATE OrderSummary s SET s.memberName = ", "s.memberId", chunk, nameById).executeUpdate();
+        }
+        return updatedCount;
+    }
+
+    private Query caseUpdate(String updateSet, String idPath, List<Long> ids, Map<Long, String> nameById) {
+        StringBuilder jpql = new StringBuilder(updateSet).append("CASE ").append(idPath);
+        for (int i = 0; i < ids.size(); i++) {
+            jpql.append(" WHEN :id").append(i).append(" THEN :name").append(i);
+        }
+        jpql.append(" END WHERE ").append(idPath).append(" IN :ids");
+
+        Query query = entityManager.createQuery(jpql.toString());
+        for (int i = 0; i < ids.size(); i++) {
+            query.setParameter("id" + i, ids.get(i));
+            query.setParameter("name" + i, nameById.get(ids.get(i)));
+        }
+        return query.setParameter("ids", ids);
+    }
+
+    private static <T> List<List<T>> chunks(Collection<T> values) {
+        List<T> list = new ArrayList<>(values);
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += IN_CHUNK_SIZE) {
+            chunks.add(list.subList(from, Math.min(from + IN_CHUNK_SIZE, list.size())));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,64 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.common.BloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.stream.Stream;
+
+/**
+ * 회원 가입 시 중복 이름 SELECT를 줄이기 위한 블룸 필터
+ * mightContain()이 false인 이름(처음 보는 이름)은 findByName()을 생략하고 바로 INSERT한다.
+ * 중복 여부의 최종 판단은 member.name 유니크 제약조건이 하므로 필터가 틀려도(오탐, 다른 서버의 가입) 중복 가입은 생기지 않는다.
+ */
+@Slf4j
+@Component
+public class MemberNameFilter {
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final BloomFilter bloomFilter;
+
+    public MemberNameFilter(EntityManager entityManager,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${jpashop.member.name-filter.expected-insertions:1000000}") long expectedInsertions,
+                            @Value("${jpashop.member.name-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.bloomFilter = new BloomFilter(expectedInsertions, falsePositiveRate);
+    }
+
+    /**
+     * 서버가 뜰 때 이미 가입된 회원 이름을 모두 넣어둔다
+     * getResultStream()은 다 읽을 때까지 커넥션을 쓰므로 트랜잭션 안에서 읽는다
+     * (트랜잭션 없이 호출하면 SELECT가 끝나자마자 커넥션을 돌려줘서 닫힌 커넥션에서 읽게 된다)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        Long count = readOnlyTransaction.execute(status -> {
+            try (Stream<String> names = entityManager.createQuery("SELECT m.name FROM Member m WHERE m.name IS NOT NULL", String.class)
+                    .getResultStream()) {
+                return names.peek(bloomFilter::put).count();
+            }
+        });
+        log.info("회원 이름 블룸 필터 적재 완료, 회원 수={}", count);
+    }
+
+    public boolean mightExist(String name) {
+        return name != null && bloomFilter.mightContain(name);
+    }
+
+    /* 블룸 필터는 지울 수 없으므로 롤백되거나 이름이 바뀐 경우에도 남아있다(오탐이 늘어날 뿐 결과는 틀리지 않음) */
+    public void put(String name) {
+        if (name != null) {
+            bloomFilter.put(name);
+        }
+    }
+}
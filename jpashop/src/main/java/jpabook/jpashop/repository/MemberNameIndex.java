@@ -0,0 +1,176 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.exception.TooManySearchMatchesException;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 회원 이름 "포함" 검색용 메모리 n-gram(2글자) 인덱스
+ * LIKE '%검색어%'는 B-Tree 인덱스를 쓸 수 없어서 member 테이블 전체를 읽는다.
+ * 이름을 2글자씩 잘라서(바이그램) 바이그램 -> 회원 id 목록을 만들어두고,
+ * 검색어의 바이그램 목록을 교집합한 뒤 실제로 포함하는지 한 번 더 확인해서 회원 id를 돌려준다.
+ *
+ * 1. 서버가 뜰 때(ApplicationReadyEvent) 전체 회원 이름으로 만든다
+ * 2. MemberService.join(), update()가 커밋된 이후에 putAfterCommit()으로 반영한다
+ * 서버마다 따로 가지는 인덱스이므로 다른 서버에서 바꾼 이름은 재시작(rebuild) 전까지 반영되지 않는다
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MemberNameIndex {
+
+    private static final int GRAM_SIZE = 2;
+    public static final int MAX_CONTAINS_MATCHES = 1000; // IN 절 256개 기준 최대 4묶음
+
+    private final EntityManager entityManager;
+
+    private final Map<String, Set<Long>> idsByGram = new HashMap<>();
+    private final Map<Long, String> nameById = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Object[]> rows = entityManager.createQuery("SELECT m.id, m.name FROM Member m", Object[].class)
+                .getResultList();
+        lock.writeLock().lock();
+        try {
+            idsByGram.clear();
+            nameById.clear();
+            for (Object[] row : rows) {
+                add((Long) row[0], (String) row[1]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("회원 이름 n-gram 인덱스 생성 완료, 회원 수={}, gram 수={}", nameById.size(), idsByGram.size());
+    }
+
+    /* 트랜잭션이 롤백되면 반영하지 않도록 커밋 이후에 반영 */
+    public void putAfterCommit(Long memberId, String name) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(memberId, name);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(memberId, name);
+            }
+        });
+    }
+
+    public void put(Long memberId, String name) {
+        lock.writeLock().lock();
+        try {
+            remove(memberId);
+            add(memberId, name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * keyword를 포함하는 이름을 가진 회원 id 목록
+     * 검색어가 GRAM_SIZE보다 짧으면 바이그램을 만들 수 없으므로 메모리의 이름 목록을 훑는다(DB 접근 X)
+     */
+    public Set<Long> findIdsContaining(String keyword) {
+        String normalized = normalize(keyword);
+        lock.readLock().lock();
+        try {
+            Collection<Long> candidates = normalized.length() < GRAM_SIZE ? nameById.keySet() : intersect(grams(normalized));
+            Set<Long> result = new HashSet<>();
+            for (Long memberId : candidates) {
+                if (nameById.get(memberId).contains(normalized)) {
+                    result.add(memberId);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 주문 검색의 member_id IN (...) 조건에 넣을 회원 id 묶음
+     * 1. 검색어가 너무 흔하면(예: 한 글자) 회원 id가 수만 개가 되어 바인드 파라미터 제한을 넘고 DB가 IN 목록을 다 비교해야 하므로
+     *    MAX_CONTAINS_MATCHES를 넘으면 검색어를 더 구체적으로 입력하도록 예외를 던진다
+     * 2. 넘지 않으면 정렬한 뒤 OrderQueryRepository.toPaddedChunks()로 16/64/256개 묶음으로 채워서 SQL 모양(실행계획)을 고정한다
+     *    ==> 호출하는 쪽에서 묶음마다 IN을 만들고 OR로 묶는다
+     */
+    public List<List<Long>> findIdChunksContaining(String keyword) {
+        Set<Long> memberIds = findIdsContaining(keyword);
+        if (memberIds.size() > MAX_CONTAINS_MATCHES) {
+            throw new TooManySearchMatchesException("'" + keyword + "'을(를) 포함하는 회원이 " + memberIds.size()
+                    + "명입니다. 최대 " + MAX_CONTAINS_MATCHES + "명까지 검색할 수 있으니 검색어를 더 길게 입력하세요.");
+        }
+        List<Long> sortedIds = new ArrayList<>(memberIds);
+        Collections.sort(sortedIds);
+        return OrderQueryRepository.toPaddedChunks(sortedIds);
+    }
+
+    /* 가장 짧은 목록부터 교집합해서 비교 횟수를 줄인다 */
+    private Set<Long> intersect(Set<String> grams) {
+        List<Set<Long>> postings = new ArrayList<>();
+        for (String gram : grams) {
+            Set<Long> ids = idsByGram.get(gram);
+            if (ids == null) {
+                return Set.of(); // 없는 바이그램이 하나라도 있으면 결과 없음
+            }
+            postings.add(ids);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+
+        Set<Long> result = new HashSet<>(postings.get(0));
+        for (int i = 1; i < postings.size() && !result.isEmpty(); i++) {
+            result.retainAll(postings.get(i));
+        }
+        return result;
+    }
+
+    private void add(Long memberId, String name) {
+        if (name == null) {
+            return;
+        }
+        String normalized = normalize(name);
+        nameById.put(memberId, normalized);
+        for (String gram : grams(normalized)) {
+            idsByGram.computeIfAbsent(gram, key -> new HashSet<>()).add(memberId);
+        }
+    }
+
+    private void remove(Long memberId) {
+        String oldName = nameById.remove(memberId);
+        if (oldName == null) {
+            return;
+        }
+        for (String gram : grams(oldName)) {
+            Set<Long> ids = idsByGram.get(gram);
+            if (ids != null && ids.remove(memberId) && ids.isEmpty()) {
+                idsByGram.remove(gram);
+            }
+        }
+    }
+
+    private static Set<String> grams(String normalized) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= normalized.length(); i++) {
+            grams.add(normalized.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,9 +1,18 @@
 package jpabook.jpashop.repository;
 
+import com.querydsl.core.types.Projections;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.*;
+import jpabook.jpashop.repository.order.query.OrderListDto;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
 
@@ -15,16 +24,24 @@ import java.util.List;
 
 import static jpabook.jpashop.domain.QMember.*;
 import static jpabook.jpashop.domain.QOrder.*;
+import static jpabook.jpashop.domain.QOrderItem.*;
+import static jpabook.jpashop.domain.item.QItem.*;
 
 @Repository
 public class OrderRepository {
 
     private final EntityManager entityManager;
     private final JPAQueryFactory jpaQueryFactory;
+    private final MemberNameIndex memberNameIndex;
+    private final int batchSize;
 
-    public OrderRepository(EntityManager entityManager) {
+    public OrderRepository(EntityManager entityManager,
+                           MemberNameIndex memberNameIndex,
+                           @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}") int batchSize) {
         this.entityManager = entityManager;
         this.jpaQueryFactory = new JPAQueryFactory(entityManager);
+        this.memberNameIndex = memberNameIndex;
+        this.batchSize = batchSize;
     }
 
 
@@ -36,9 +53,19 @@ public class OrderRepository {
         return entityManager.find(Order.class, id);
     }
 
+    /**
+     * 대량 저장 - batchSize개마다 flush()로 JDBC 배치 INSERT를 보내고 clear()로 영속성 컨텍스트를 비운다.
+     * clear()를 안 하면 저장한 엔티티가 영속성 컨텍스트(1차 캐시, 스냅샷)에 계속 쌓여서 메모리와 flush 비용이 늘어난다.
+     * 주의) clear() 이후에는 호출한 쪽이 들고 있던 엔티티도 준영속 상태가 된다.
+     */
     public void saveAll(List<Order> orderList) {
+        int count = 0;
         for (Order order : orderList) {
             entityManager.persist(order);
+            if (++count % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
         }
     }
 
@@ -118,9 +145,16 @@ public class OrderRepository {
             criteria.add(status);
         }
 
-        //회원 이름 검색
+        //회원 이름 검색(LIKE '%이름%'은 인덱스를 못 타므로 비교 방식에 따라 나눈다)
         if (StringUtils.hasText(orderSearch.getMemberName())) {
-            Predicate name = criteriaBuilder.like(memberJoin.<String>get("name"), "%" + orderSearch.getMemberName() + "%");
+            String memberName = orderSearch.getMemberName();
+            Predicate name = switch (memberNameMatch(orderSearch)) {
+                case EXACT -> criteriaBuilder.equal(memberJoin.get("name"), memberName);
+                case PREFIX -> criteriaBuilder.like(memberJoin.<String>get("name"), escapeLike(memberName) + "%", '\\');
+                case CONTAINS -> criteriaBuilder.or(memberNameIndex.findIdChunksContaining(memberName).stream() // 묶음이 없으면 or() == 거짓
+                        .map(chunk -> orderRoot.get("member").get("id").in(chunk))
+                        .toArray(Predicate[]::new));
+            };
             criteria.add(name);
         }
 
@@ -141,11 +175,79 @@ public class OrderRepository {
                 .fetch();
     }
 
+    /**
+     * findAllByQueryDsl()의 DTO 조회 + 페이징 버전(주문 목록 화면용)
+     * 1. 엔티티 대신 화면에 필요한 칼럼만 Projections.constructor로 조회 ==> 영속성 컨텍스트, 스냅샷, 지연로딩 X
+     * 2. limit(1000) 대신 Pageable로 잘라서 조회(화면의 한 줄 == 주문상품 1개 기준)
+     * 3. count 쿼리는 따로 최적화: 상품(item) 조인은 빼고, 회원 이름(EXACT, PREFIX) 조건이 있을 때만 회원을 조인한다
+     *    PageableExecutionUtils는 첫 페이지가 size보다 적거나 마지막 페이지면 count 쿼리를 아예 실행하지 않는다
+     */
+    public Page<OrderListDto> findOrderList(OrderSearch orderSearch, Pageable pageable) {
+        List<OrderListDto> content = jpaQueryFactory
+                .select(Projections.constructor(OrderListDto.class,
+                        order.id, member.name, item.name, orderItem.orderPrice, orderItem.count, order.status, order.orderDate))
+                .from(orderItem)
+                .join(orderItem.order, order)
+                .join(order.member, member)
+                .join(orderItem.item, item)
+                .where(statusEqual(orderSearch.getOrderStatus()), nameLike(orderSearch, member))
+                .orderBy(order.id.desc(), orderItem.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .fetch();
+
+        JPAQuery<Long> countQuery = jpaQueryFactory
+                .select(orderItem.count())
+                .from(orderItem)
+                .join(orderItem.order, order);
+        if (needsMemberJoin(orderSearch)) {
+            countQuery.join(order.member, member);
+        }
+        countQuery.where(statusEqual(orderSearch.getOrderStatus()), nameLike(orderSearch, member));
+
+        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+    }
+
+    /**
+     * 회원 이름 조건
+     * EXACT : name = ? / PREFIX : name LIKE '이름%' ==> uk_member_name 인덱스 사용
+     * CONTAINS : MemberNameIndex(n-gram)로 회원 id를 먼저 찾고 orders.member_id IN (...)으로 거른다(회원 조인 X)
+     *            회원 id는 MAX_CONTAINS_MATCHES개까지, 16/64/256개 묶음의 IN을 OR로 묶는다
+     */
     private BooleanExpression nameLike(OrderSearch orderSearch, QMember member) {
         if (!StringUtils.hasText(orderSearch.getMemberName())) {
             return null;
         }
-        return member.name.like(orderSearch.getMemberName());
+        String memberName = orderSearch.getMemberName();
+        return switch (memberNameMatch(orderSearch)) {
+            case EXACT -> member.name.eq(memberName);
+            case PREFIX -> member.name.startsWith(memberName); // QueryDSL이 %, _를 이스케이프해준다
+            case CONTAINS -> memberIdIn(memberNameIndex.findIdChunksContaining(memberName));
+        };
+    }
+
+    /* member_id IN (묶음1) OR member_id IN (묶음2) ... */
+    private BooleanExpression memberIdIn(List<List<Long>> memberIdChunks) {
+        if (memberIdChunks.isEmpty()) {
+            return Expressions.FALSE.isTrue();
+        }
+        return Expressions.anyOf(memberIdChunks.stream()
+                .map(chunk -> QOrder.order.member.id.in(chunk))
+                .toArray(BooleanExpression[]::new));
+    }
+
+    /* CONTAINS는 orders.member_id만 보면 되므로 count 쿼리에서 회원을 조인할 필요가 없다 */
+    private boolean needsMemberJoin(OrderSearch orderSearch) {
+        return StringUtils.hasText(orderSearch.getMemberName()) && memberNameMatch(orderSearch) != MemberNameMatch.CONTAINS;
+    }
+
+    private MemberNameMatch memberNameMatch(OrderSearch orderSearch) {
+        return orderSearch.getMemberNameMatch() == null ? MemberNameMatch.EXACT : orderSearch.getMemberNameMatch();
+    }
+
+    private String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
 
     private BooleanExpression statusEqual(OrderStatus orderStatus) {
@@ -189,6 +291,38 @@ public class OrderRepository {
                 .getResultList();
     }
 
+    /**
+     * 컬렉션 페치 조인에 setFirstResult(), setMaxResults()를 걸면 하이버네이트는 경고 로그를 남기고
+     * 모든 row를 메모리에 올린 뒤에 애플리케이션에서 페이징한다(데이터가 많으면 장애로 이어짐).
+     * 그래서 페이징을 두 단계로 나눈다.
+     * 1단계: 1대다 조인 없이 Order의 id만 SQL로 페이징(row 증가 X, DB에서 limit/offset 적용)
+     * 2단계: 1단계에서 뽑은 id에 대해서만 페치 조인으로 Member, Delivery, OrderItem, Item을 한번에 조회
+     */
+    public List<Order> findAllWithItem(int offset, int limit) {
+        List<Long> orderIds = entityManager.createQuery(
+                        "SELECT o.id FROM Order o ORDER BY o.id", Long.class)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+
+        if (orderIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        return entityManager.createQuery(
+                        "SELECT DISTINCT o " +
+                                "FROM Order o " +
+                                "JOIN FETCH o.member m " +
+                                "JOIN FETCH o.delivery d " +
+                                "JOIN FETCH o.orderItems oi " +
+                                "JOIN FETCH oi.item i " +
+                                "WHERE o.id IN :orderIds " +
+                                "ORDER BY o.id", Order.class
+                )
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+    }
+
     /**
      * V3.1 - 페이징 최적화를 위한 첫번째 메소드
      *
@@ -206,4 +340,26 @@ public class OrderRepository {
                 .setMaxResults(limit)
                 .getResultList();
     }
+
+    /**
+     * V3.2 - 커서(Keyset) 기반 페이징
+     * offset 방식은 DB가 offset 앞의 row를 모두 읽고 버려야 하기 때문에 뒤쪽 페이지로 갈수록 느려진다.
+     * 마지막으로 조회한 order_id 다음부터 PK 인덱스를 타고 limit개만 읽으므로 몇 번째 페이지든 비용이 같다.
+     *
+     * @param lastOrderId 이전 페이지의 마지막 order_id (첫 페이지는 null)
+     * @param limit
+     * @return List<Order>
+     */
+    public List<Order> findAllWithMemberAndDeliveryAfter(Long lastOrderId, int limit) {
+        return entityManager.createQuery(
+                        "SELECT o FROM Order o " +
+                                "JOIN FETCH o.member m " +
+                                "JOIN FETCH o.delivery d " +
+                                "WHERE o.id > :lastOrderId " +
+                                "ORDER BY o.id", Order.class
+                )
+                .setParameter("lastOrderId", lastOrderId == null ? 0L : lastOrderId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
 }
@@ -0,0 +1,90 @@
+package jpabook.jpashop.repository;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.MemberNameMatch;
+import jpabook.jpashop.domain.OrderSearch;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.OrderSummary;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+
+import static jpabook.jpashop.domain.QOrderSummary.*;
+
+@Repository
+public class OrderSummaryRepository {
+
+    private final EntityManager entityManager;
+    private final JPAQueryFactory jpaQueryFactory;
+    private final MemberNameIndex memberNameIndex;
+
+    public OrderSummaryRepository(EntityManager entityManager, MemberNameIndex memberNameIndex) {
+        this.entityManager = entityManager;
+        this.jpaQueryFactory = new JPAQueryFactory(entityManager);
+        this.memberNameIndex = memberNameIndex;
+    }
+
+    public void save(OrderSummary orderSummary) {
+        entityManager.persist(orderSummary);
+    }
+
+    public OrderSummary findOne(Long orderId) {
+        return entityManager.find(OrderSummary.class, orderId);
+    }
+
+    /**
+     * order_summary 한 테이블만 읽는 주문 검색(조인 X)
+     * 최신 주문부터 보여주기 위해 order_id 내림차순(PK 인덱스)으로 정렬
+     */
+    public List<OrderSummary> findAll(OrderSearch orderSearch, int offset, int limit) {
+        return jpaQueryFactory
+                .selectFrom(orderSummary)
+                .where(statusEqual(orderSearch.getOrderStatus()), memberNameLike(orderSearch.getMemberName(), orderSearch.getMemberNameMatch()))
+                .orderBy(orderSummary.id.desc())
+                .offset(offset)
+                .limit(limit)
+                .fetch();
+    }
+
+    /**
+     * 회원 이름이 바뀌면 그 회원의 주문 요약도 같이 바꾼다(벌크 UPDATE 한 번)
+     * 벌크 연산은 영속성 컨텍스트를 거치지 않으므로 이미 조회한 OrderSummary는 옛날 이름을 가지고 있을 수 있다
+     */
+    public int updateMemberName(Long memberId, String memberName) {
+        return entityManager.createQuery(
+                        "UPDATE OrderSummary s SET s.memberName = :memberName WHERE s.memberId = :memberId")
+                .setParameter("memberName", memberName)
+                .setParameter("memberId", memberId)
+                .executeUpdate();
+    }
+
+    private BooleanExpression memberNameLike(String memberName, MemberNameMatch memberNameMatch) {
+        if (!StringUtils.hasText(memberName)) {
+            return null;
+        }
+        if (memberNameMatch == MemberNameMatch.PREFIX) {
+            return orderSummary.memberName.startsWith(memberName);
+        }
+        if (memberNameMatch == MemberNameMatch.CONTAINS) {
+            List<List<Long>> memberIdChunks = memberNameIndex.findIdChunksContaining(memberName);
+            if (memberIdChunks.isEmpty()) {
+                return Expressions.FALSE.isTrue();
+            }
+            return Expressions.anyOf(memberIdChunks.stream()
+                    .map(chunk -> orderSummary.memberId.in(chunk))
+                    .toArray(BooleanExpression[]::new)); // member_id IN (묶음1) OR member_id IN (묶음2) ...
+        }
+        return orderSummary.memberName.eq(memberName);
+    }
+
+    private BooleanExpression statusEqual(OrderStatus orderStatus) {
+        if (orderStatus == null) {
+            return null;
+        }
+        return orderSummary.status.eq(orderStatus);
+    }
+}
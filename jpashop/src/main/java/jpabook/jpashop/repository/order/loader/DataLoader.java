@@ -0,0 +1,54 @@
+package jpabook.jpashop.repository.order.loader;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * 키를 먼저 모아두었다가(load) dispatch()에서 한 번에 조회하는 배치 로더
+ * 같은 키를 여러 번 등록해도 한 번만 조회하고, 이미 조회한 키는 다시 조회하지 않는다.
+ *
+ * @param <K> 조회 키(엔티티 id 등)
+ * @param <V> 조회 결과
+ */
+public class DataLoader<K, V> {
+
+    private final Function<Collection<K>, Map<K, V>> batchFunction;
+    private final Set<K> pendingKeys = new LinkedHashSet<>();
+    private final Map<K, V> loaded = new HashMap<>();
+
+    public DataLoader(Function<Collection<K>, Map<K, V>> batchFunction) {
+        this.batchFunction = batchFunction;
+    }
+
+    /* 조회할 키 등록(SQL 실행 X) */
+    public void load(K key) {
+        if (key != null && !loaded.containsKey(key)) {
+            pendingKeys.add(key);
+        }
+    }
+
+    /**
+     * 등록된 키를 batchFunction으로 한 번에 조회
+     * @return 조회할 키가 있어서 batchFunction을 실행했으면 true
+     */
+    public boolean dispatch() {
+        if (pendingKeys.isEmpty()) {
+            return false;
+        }
+        List<K> keys = new ArrayList<>(pendingKeys);
+        pendingKeys.clear();
+        Map<K, V> result = batchFunction.apply(keys);
+        for (K key : keys) {
+            loaded.put(key, result.get(key)); // 조회되지 않은 키도 null로 기록해서 다시 조회하지 않는다
+        }
+        return true;
+    }
+
+    /* dispatch()로 조회한 결과, 등록하지 않았거나 아직 dispatch()하지 않은 키면 예외 */
+    public V get(K key) {
+        if (!loaded.containsKey(key)) {
+            throw new IllegalStateException("dispatch()되지 않은 키입니다. key=" + key);
+        }
+        return loaded.get(key);
+    }
+}
@@ -0,0 +1,113 @@
+package jpabook.jpashop.repository.order.loader;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceUnitUtil;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Item;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import java.util.*;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.*;
+
+/**
+ * 주문 목록을 DTO로 변환할 때 필요한 연관 엔티티(회원, 배송, 주문상품, 상품)를 타입별 IN 쿼리로 모아서 조회하는 요청 스코프 로더
+ *
+ * default_batch_fetch_size는 프록시를 처음 건드리는 순간 "그 시점에 영속성 컨텍스트에 있는 같은 타입 프록시"를 묶어서 조회하기 때문에
+ * 주문 개수가 batch size를 넘거나 DTO를 만드는 순서가 바뀌면 쿼리 수가 달라진다.
+ * 여기서는 DTO를 만들기 전에 필요한 id를 전부 등록(load)하고 라운드 단위로 조회(dispatch)하므로 쿼리 수가 항상 같다.
+ *
+ * 1라운드: 회원 IN 1번 + 배송 IN 1번 + 주문상품(order_id) IN 1번
+ * 2라운드: 상품 IN 1번(주문상품을 조회해야 item_id를 알 수 있음)
+ * ==> 주문 조회 1번 + 4번, 주문이 몇 건이든(IN 목록이 한 번에 들어가는 한) 5번
+ * 배송 -> 주문 반대쪽 @OneToOne 매핑이 있으면 배송마다 주문을 다시 조회하므로 Delivery는 단방향으로 유지해야 이 숫자가 맞다
+ * 로더가 돌려주는 엔티티는 DTO로 옮길 값만 꺼내 쓰고, 엔티티 자체를 응답에 담지 않는다
+ */
+@Component
+@RequestScope
+public class OrderGraphLoader {
+
+    private final EntityManager entityManager;
+    private final PersistenceUnitUtil persistenceUnitUtil;
+
+    private final DataLoader<Long, Member> memberLoader;
+    private final DataLoader<Long, Delivery> deliveryLoader;
+    private final DataLoader<Long, List<OrderItem>> orderItemsLoader;
+    private final DataLoader<Long, Item> itemLoader;
+
+    public OrderGraphLoader(EntityManager entityManager) {
+        this.entityManager = entityManager;
+        this.persistenceUnitUtil = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+        this.memberLoader = new DataLoader<>(ids -> findAllByIds(Member.class, ids));
+        this.deliveryLoader = new DataLoader<>(ids -> findAllByIds(Delivery.class, ids));
+        this.orderItemsLoader = new DataLoader<>(this::findOrderItemsByOrderIds);
+        this.itemLoader = new DataLoader<>(ids -> findAllByIds(Item.class, ids));
+    }
+
+    /* 주문 목록에 필요한 연관 엔티티를 2라운드로 모두 조회 */
+    public void loadAll(List<Order> orders) {
+        for (Order order : orders) {
+            memberLoader.load(idOf(order.getMember()));
+            deliveryLoader.load(idOf(order.getDelivery()));
+            orderItemsLoader.load(order.getId());
+        }
+        memberLoader.dispatch();
+        deliveryLoader.dispatch();
+        orderItemsLoader.dispatch();
+
+        for (Order order : orders) {
+            for (OrderItem orderItem : orderItemsLoader.get(order.getId())) {
+                itemLoader.load(idOf(orderItem.getItem()));
+            }
+        }
+        itemLoader.dispatch();
+    }
+
+    public Member member(Order order) {
+        return memberLoader.get(idOf(order.getMember()));
+    }
+
+    public Delivery delivery(Order order) {
+        return deliveryLoader.get(idOf(order.getDelivery()));
+    }
+
+    public List<OrderItem> orderItems(Order order) {
+        return orderItemsLoader.get(order.getId());
+    }
+
+    public Item item(OrderItem orderItem) {
+        return itemLoader.get(idOf(orderItem.getItem()));
+    }
+
+    /* 프록시를 초기화하지 않고 id만 꺼낸다(프록시의 getId()는 매핑 방식에 따라 초기화될 수 있음) */
+    private Long idOf(Object entity) {
+        return entity == null ? null : (Long) persistenceUnitUtil.getIdentifier(entity);
+    }
+
+    private <T> Map<Long, T> findAllByIds(Class<T> type, Collection<Long> ids) {
+        String jpql = "SELECT e FROM " + type.getSimpleName() + " e WHERE e.id IN :ids";
+        return entityManager.createQuery(jpql, type)
+                .setParameter("ids", ids)
+                .getResultList()
+                .stream()
+                .collect(toMap(this::idOf, Function.identity()));
+    }
+
+    private Map<Long, List<OrderItem>> findOrderItemsByOrderIds(Collection<Long> orderIds) {
+        Map<Long, List<OrderItem>> orderItemMap = entityManager.createQuery(
+                        "SELECT oi FROM OrderItem oi WHERE oi.order.id IN :orderIds ORDER BY oi.id", OrderItem.class)
+                .setParameter("orderIds", orderIds)
+                .getResultList()
+                .stream()
+                .collect(groupingBy(orderItem -> idOf(orderItem.getOrder())));
+        for (Long orderId : orderIds) {
+            orderItemMap.putIfAbsent(orderId, List.of()); // 주문상품이 없는 주문도 빈 목록으로
+        }
+        return orderItemMap;
+    }
+}
@@ -0,0 +1,74 @@
+package jpabook.jpashop.repository.order.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * order_id 순서로 정렬된 OrderFlatDto(주문 x 주문상품 row)를 한 번만 훑으면서
+ * 연속된 row를 OrderQueryDto 하나로 접어주는 클래스
+ *
+ * Collectors.groupingBy()와 다르게
+ * 1. row마다 key용 OrderQueryDto를 만들지 않는다(row당 새로 만드는 객체는 OrderItemQueryDto 뿐)
+ * 2. DTO의 equals/hashCode에 의존하지 않는다(order_id가 바뀌는 순간만 보면 된다)
+ * 3. 쿼리의 정렬 순서를 그대로 유지한다(HashMap 순서 X)
+ * 4. row 개수가 아니라 "주문" 개수로 limit을 걸 수 있다
+ */
+public class OrderFlatGrouper {
+
+    private final int maxOrders;
+    private final Consumer<OrderQueryDto> consumer;
+
+    private OrderQueryDto current;
+    private int emittedCount;
+
+    public OrderFlatGrouper(Consumer<OrderQueryDto> consumer) {
+        this(Integer.MAX_VALUE, consumer);
+    }
+
+    public OrderFlatGrouper(int maxOrders, Consumer<OrderQueryDto> consumer) {
+        this.maxOrders = maxOrders;
+        this.consumer = consumer;
+    }
+
+    /**
+     * @return false면 이미 maxOrders개의 주문을 채웠다는 의미이므로 더 이상 row를 읽을 필요가 없다
+     */
+    public boolean add(OrderFlatDto row) {
+        if (current == null || !current.getOrderId().equals(row.getOrderId())) {
+            if (current != null) {
+                emit();
+            }
+            if (emittedCount >= maxOrders) {
+                return false;
+            }
+            current = new OrderQueryDto(row.getOrderId(), row.getName(), row.getOrderDate(),
+                    row.getOrderStatus(), row.getAddress(), row.getTotalPrice(), new ArrayList<>());
+        }
+        current.getOrderItems().add(new OrderItemQueryDto(row.getOrderId(), row.getItemName(), row.getPrice(), row.getCount()));
+        return true;
+    }
+
+    /* 마지막으로 접고 있던 주문을 내보낸다 */
+    public void finish() {
+        if (current != null) {
+            emit();
+        }
+    }
+
+    private void emit() {
+        consumer.accept(current);
+        current = null;
+        emittedCount++;
+    }
+
+    public static List<OrderQueryDto> group(List<OrderFlatDto> rows) {
+        List<OrderQueryDto> result = new ArrayList<>();
+        OrderFlatGrouper grouper = new OrderFlatGrouper(result::add);
+        for (OrderFlatDto row : rows) {
+            grouper.add(row);
+        }
+        grouper.finish();
+        return result;
+    }
+}
@@ -1,18 +1,53 @@
 package jpabook.jpashop.repository.order.query;
 
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.jpa.EntityManagerHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Repository
-@RequiredArgsConstructor
 public class OrderQueryRepository {
 
+    private static final int[] IN_CLAUSE_SIZES = {16, 64, 256};
+
     private final EntityManager entityManager;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean parallelInQuery;
+    private final ExecutorService inQueryExecutor;
+
+    public OrderQueryRepository(EntityManager entityManager,
+                                EntityManagerFactory entityManagerFactory,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${jpashop.query.parallel-in-query:false}") boolean parallelInQuery,
+                                @Value("${jpashop.query.parallel-in-threads:4}") int parallelInThreads) {
+        this.entityManager = entityManager;
+        this.entityManagerFactory = entityManagerFactory;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.parallelInQuery = parallelInQuery;
+        this.inQueryExecutor = Executors.newFixedThreadPool(parallelInThreads);
+    }
 
     public List<OrderQueryDto> findOrderQueryDtos() {
         List<OrderQueryDto> result = findOrders();
@@ -41,7 +76,7 @@ public class OrderQueryRepository {
      */
     private List<OrderQueryDto> findOrders() {
         return entityManager.createQuery(
-                        "SELECT new jpabook.jpashop.repository.order.query.OrderQueryDto(o.id, m.name, o.orderDate, o.status, d.address) " +
+                        "SELECT new jpabook.jpashop.repository.order.query.OrderQueryDto(o.id, m.name, o.orderDate, o.status, d.address, o.totalPrice) " +
                                 "FROM Order o " +
                                 "JOIN o.member m " +
                                 "JOIN o.delivery d", OrderQueryDto.class)
@@ -61,14 +96,26 @@ public class OrderQueryRepository {
         return result;
     }
 
+    /**
+     * orderId 전체를 IN 절 하나에 넣으면
+     * 1. 주문이 많을 때 DB의 바인드 파라미터 개수 제한에 걸리고
+     * 2. IN 절의 파라미터 개수가 다를 때마다 다른 SQL이 되어서 statement(실행계획) 캐시를 재사용하지 못한다.
+     * 그래서 IN_CLAUSE_SIZES(16/64/256) 중 하나의 크기로 잘라서 조회하고, 남는 자리는 마지막 id로 채운다(중복 id는 결과에 영향 X).
+     * SQL 모양이 세 가지로 고정되기 때문에 실행계획을 계속 재사용한다.
+     * parallelInQuery가 켜져 있으면 청크마다 별도의 EntityManager(커넥션), 읽기 전용 트랜잭션으로 동시에 조회한 뒤 합친다(한 스냅샷 X).
+     */
     private Map<Long, List<OrderItemQueryDto>> findOrderItemMap(List<Long> orderIds) {
-        List<OrderItemQueryDto> orderItems = entityManager.createQuery(
-                "SELECT new jpabook.jpashop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count) " +
-                        "FROM OrderItem oi " +
-                        "JOIN oi.item i " +
-                        "WHERE oi.order.id IN :orderIds ", OrderItemQueryDto.class)
-                .setParameter("orderIds", orderIds)
-                .getResultList();
+        List<List<Long>> chunks = toPaddedChunks(orderIds);
+
+        List<OrderItemQueryDto> orderItems;
+        if (parallelInQuery && chunks.size() > 1) {
+            orderItems = findOrderItemsInParallel(chunks);
+        } else {
+            orderItems = new ArrayList<>();
+            for (List<Long> chunk : chunks) {
+                orderItems.addAll(findOrderItemsIn(entityManager, chunk));
+            }
+        }
 
         // DB에서 가져온 OrderItem 데이터를 Map에 세팅
         Map<Long, List<OrderItemQueryDto>> orderItemMap = orderItems.stream()
@@ -76,6 +123,68 @@ public class OrderQueryRepository {
         return orderItemMap;
     }
 
+    private List<OrderItemQueryDto> findOrderItemsIn(EntityManager entityManager, List<Long> orderIds) {
+        return entityManager.createQuery(
+                        "SELECT new jpabook.jpashop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count) " +
+                                "FROM OrderItem oi " +
+                                "JOIN oi.item i " +
+                                "WHERE oi.order.id IN :orderIds ", OrderItemQueryDto.class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+    }
+
+    /**
+     * 트랜잭션에 묶인 entityManager는 스레드 간에 공유할 수 없으므로 청크마다 새 EntityManager를 만들어서 조회한다.
+     * 청크마다 자기 읽기 전용 트랜잭션(readOnlyTransaction)으로 조회하므로, 호출한 쪽 트랜잭션의 읽기 전용 보장(flush X, replica 라우팅)은 그대로지만
+     * 커넥션과 트랜잭션이 다르기 때문에 주문 조회와 각 청크는 같은 시점(스냅샷)의 데이터가 아니다.
+     * ==> 그 사이에 커밋된 주문상품이 섞이거나 빠질 수 있으므로, 한 시점의 결과가 필요하면 parallel-in-query를 끄고 순서대로 조회한다.
+     * 청크 하나가 예외를 던져도 EntityManager는 finally에서 닫는다(트랜잭션 매니저가 닫지 않도록 OSIV처럼 스레드에 직접 바인딩).
+     */
+    private List<OrderItemQueryDto> findOrderItemsInParallel(List<List<Long>> chunks) {
+        List<CompletableFuture<List<OrderItemQueryDto>>> futures = chunks.stream()
+                .map(chunk -> CompletableFuture.supplyAsync(() -> {
+                    EntityManager chunkEntityManager = entityManagerFactory.createEntityManager();
+                    TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(chunkEntityManager));
+                    try {
+                        return readOnlyTransaction.execute(status -> findOrderItemsIn(chunkEntityManager, chunk));
+                    } finally {
+                        TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+                        chunkEntityManager.close();
+                    }
+                }, inQueryExecutor))
+                .collect(Collectors.toList());
+
+        List<OrderItemQueryDto> orderItems = new ArrayList<>();
+        for (CompletableFuture<List<OrderItemQueryDto>> future : futures) {
+            orderItems.addAll(future.join());
+        }
+        return orderItems;
+    }
+
+    /* IN_CLAUSE_SIZES 중 가장 작은 크기로 자르고, 모자란 자리는 마지막 id로 채운다 */
+    public static List<List<Long>> toPaddedChunks(List<Long> ids) {
+        int maxSize = IN_CLAUSE_SIZES[IN_CLAUSE_SIZES.length - 1];
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += maxSize) {
+            List<Long> chunk = new ArrayList<>(ids.subList(from, Math.min(from + maxSize, ids.size())));
+            int paddedSize = Arrays.stream(IN_CLAUSE_SIZES)
+                    .filter(size -> size >= chunk.size())
+                    .findFirst()
+                    .getAsInt();
+            Long last = chunk.get(chunk.size() - 1);
+            while (chunk.size() < paddedSize) {
+                chunk.add(last);
+            }
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    @PreDestroy
+    public void shutdownInQueryExecutor() {
+        inQueryExecutor.shutdown();
+    }
+
     // OrderQueryDto의 orderId를 모두 뽑아내서 List<Long>를 반환
     private List<Long> toOrderIds(List<OrderQueryDto> orderQueryDtos) {
         return orderQueryDtos.stream()
@@ -83,14 +192,62 @@ public class OrderQueryRepository {
                 .collect(Collectors.toList());
     }
 
+    private static final String FLAT_QUERY =
+            "SELECT new jpabook.jpashop.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, o.totalPrice, i.name, oi.orderPrice, oi.count) " +
+                    "FROM Order o " +
+                    "JOIN o.member m " +
+                    "JOIN o.delivery d " +
+                    "JOIN o.orderItems oi " +
+                    "JOIN oi.item i";
+
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    /**
+     * OrderFlatGrouper가 연속된 row를 한 주문으로 접을 수 있도록 order_id로 정렬해서 가져온다
+     */
     public List<OrderFlatDto> findAllByDtoFlat() {
-        return entityManager.createQuery(
-                "SELECT new jpabook.jpashop.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count) " +
-                        "FROM Order o " +
-                        "JOIN o.member m " +
-                        "JOIN o.delivery d " +
-                        "JOIN o.orderItems oi " +
-                        "JOIN oi.item i", OrderFlatDto.class
-        ).getResultList();
+        return entityManager.createQuery(FLAT_QUERY + " ORDER BY o.id", OrderFlatDto.class).getResultList();
+    }
+
+    /**
+     * V6 페이징 - lastOrderId 다음 주문부터 "주문" limit개만 조회
+     * 플랫 조인은 주문상품 수만큼 row가 늘어나서 setMaxResults()로는 주문 단위로 자를 수 없다.
+     * 그래서 커서로 row를 읽다가 limit + 1번째 주문이 시작되는 순간 읽기를 멈춘다.
+     */
+    @Transactional(readOnly = true)
+    public List<OrderQueryDto> findAllByDtoFlat(Long lastOrderId, int limit) {
+        List<OrderQueryDto> result = new ArrayList<>();
+        scrollFlat(FLAT_QUERY + " WHERE o.id > :lastOrderId ORDER BY o.id",
+                lastOrderId == null ? 0L : lastOrderId, new OrderFlatGrouper(limit, result::add));
+        return result;
+    }
+
+    /**
+     * findAllByDtoFlat()과 같은 조인이지만 List로 모으지 않고 forward-only 커서로 한 줄씩 읽는다.
+     * 주문이 바뀌는 순간 완성된 OrderQueryDto를 consumer에 넘기고 버리므로 힙에는 항상 주문 1건 분량의 데이터만 남는다(주문 수와 무관).
+     * DTO 조회라 영속성 컨텍스트에 엔티티가 쌓이지 않고, 커서를 열어두는 동안만 트랜잭션을 유지한다.
+     */
+    @Transactional(readOnly = true)
+    public void streamAllByDtoFlat(Consumer<OrderQueryDto> consumer) {
+        scrollFlat(FLAT_QUERY + " ORDER BY o.id", null, new OrderFlatGrouper(consumer));
+    }
+
+    private void scrollFlat(String jpql, Long lastOrderId, OrderFlatGrouper grouper) {
+        Query<OrderFlatDto> query = entityManager.unwrap(Session.class)
+                .createQuery(jpql, OrderFlatDto.class)
+                .setFetchSize(STREAM_FETCH_SIZE)
+                .setReadOnly(true);
+        if (lastOrderId != null) {
+            query.setParameter("lastOrderId", lastOrderId);
+        }
+
+        try (ScrollableResults<OrderFlatDto> rows = query.scroll(ScrollMode.FORWARD_ONLY)) {
+            while (rows.next()) {
+                if (!grouper.add(rows.get())) {
+                    break;
+                }
+            }
+        }
+        grouper.finish();
     }
 }
@@ -18,7 +18,7 @@ public class OrderSimpleQueryRepository {
      */
     public List<OrderSimpleQueryDto> findOrderDtos() {
         return entityManager.createQuery(
-                "SELECT new jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto(o.id, m.name, o.orderDate, o.status, d.address) " +
+                "SELECT new jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto(o.id, m.name, o.orderDate, o.status, d.address, o.totalPrice) " +
                         "FROM Order o " +
                         "JOIN o.member m " +
                         "JOIN o.delivery d", OrderSimpleQueryDto.class
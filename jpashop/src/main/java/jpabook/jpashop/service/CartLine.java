@@ -0,0 +1,23 @@
+package jpabook.jpashop.service;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 장바구니 주문의 한 줄(상품 id, 주문 수량)
+ * 엔티티가 아닌 식별자만 넘겨서 서비스단에서 영속 상태의 엔티티를 조회하도록 한다
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartLine {
+
+    @NotNull(message = "상품 id는 필수입니다.")
+    private Long itemId;
+
+    @Positive(message = "주문 수량은 1개 이상이어야 합니다.")
+    private int count;
+}
@@ -0,0 +1,232 @@
+package jpabook.jpashop.service;
+
+import jakarta.annotation.PreDestroy;
+import jpabook.jpashop.common.StripedStockCounter;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.HotItemStockRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 인기 상품 모드 - 한정 판매처럼 주문이 한 상품에 몰릴 때 item row 락이 병목이 되지 않도록 재고를 메모리에서 차감
+ *
+ * 1. 인기 상품(jpashop.inventory.hot-item-ids, markHot())의 재고는 StripedStockCounter에서 락 없이 차감한다(reserve())
+ *    주문 트랜잭션이 롤백되면 되돌리고, 커밋되면 주문상품(stockPending = true)이 차감 내역으로 남는다
+ * 2. 백그라운드에서 flush-interval-millis마다 대기 중인 주문상품 수량을 모아서 item 재고에 UPDATE 한 번으로 반영한다(write-behind)
+ *    ==> 주문 N건이 item row를 N번 잠그지 않고, 반영 1번만 잠근다
+ * 3. 서버가 죽어서 반영하지 못한 차감분은 order_item에 남아 있으므로, 시작할 때(reconcile()) 먼저 반영한 뒤 카운터를 채운다
+ * 4. 카운터는 주문 트랜잭션 밖(reconcile(), markHot(), flush())에서만 채운다
+ *    주문 트랜잭션 안에서 채우면 커넥션을 쥔 채로 두 번째 커넥션(REQUIRES_NEW)과 item row 락을 기다리게 되어,
+ *    판매 시작 직후 주문이 몰리면 커넥션 풀이 바닥난다 ==> 카운터가 없으면 reserve()는 바로 실패한다
+ *
+ * 주의)
+ * - 카운터가 JVM 메모리에 있으므로 서버 1대 기준이다(여러 대면 상품마다 담당 서버를 정해야 한다)
+ * - 판매 시작 전에 인기 상품으로 지정해야 한다(지정하는 순간 진행 중이던 일반 주문의 차감분은 카운터에 안 보일 수 있음)
+ * - item 테이블의 재고는 최대 flush-interval-millis만큼 늦게 반영된다(화면의 재고는 근사값)
+ */
+@Slf4j
+@Component
+public class HotItemInventory {
+
+    private final HotItemStockRepository hotItemStockRepository;
+    private final TransactionTemplate requiresNewTransaction;
+    private final int stripes;
+    private final Set<Long> hotItemIds = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<Long, StripedStockCounter> counters = new ConcurrentHashMap<>();
+
+    public HotItemInventory(HotItemStockRepository hotItemStockRepository,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${jpashop.inventory.hot-item-ids:}") Set<Long> hotItemIds,
+                            @Value("${jpashop.inventory.stripes:16}") int stripes) {
+        this.hotItemStockRepository = hotItemStockRepository;
+        this.requiresNewTransaction = new TransactionTemplate(transactionManager);
+        this.requiresNewTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW); // 주문 트랜잭션과 따로 커밋
+        this.stripes = stripes;
+        this.hotItemIds.addAll(hotItemIds);
+    }
+
+    public boolean isHot(Long itemId) {
+        return hotItemIds.contains(itemId);
+    }
+
+    /* 운영 중에 인기 상품으로 지정(판매 시작 전에, 트랜잭션 밖에서) - 카운터를 먼저 채운 뒤 지정한다 */
+    public void markHot(Long itemId) {
+        loadCounter(itemId);
+        hotItemIds.add(itemId);
+    }
+
+    /**
+     * 재고 예약(차감) - 주문 트랜잭션 안에서 호출
+     * 재고가 모자라면 NotEnoughStockException, 트랜잭션이 커밋되지 않으면 예약한 수량을 되돌린다
+     */
+    public void reserve(Long itemId, int quantity) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("인기 상품 재고 예약은 트랜잭션 안에서만 할 수 있습니다.");
+        }
+        StripedStockCounter counter = counter(itemId);
+        if (!counter.tryReserve(quantity)) {
+            throw new NotEnoughStockException("Not Enough Energy(stock quantity)");
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    counter.release(quantity);
+                }
+            }
+        });
+    }
+
+    /**
+     * 주문 취소 - 커밋된 뒤에 카운터에 되돌린다(DB 재고는 Item.addStock()으로 같은 트랜잭션에서 이미 더함)
+     * 카운터를 아직 채우지 않았다면 채울 때 DB에서 읽으므로 따로 더하지 않는다
+     */
+    public void releaseAfterCommit(Long itemId, int quantity) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                StripedStockCounter counter = counters.get(itemId);
+                if (counter != null) {
+                    counter.release(quantity);
+                }
+            }
+        });
+    }
+
+    /**
+     * 인기 상품 재고 조정(입고, 관리자 재고 수정) - 트랜잭션 안에서 호출
+     * 1. item row를 잠그고(PESSIMISTIC_WRITE) 대기 중인 차감분을 먼저 반영한 뒤 item 재고에 delta를 더한다
+     * 2. 카운터: 늘릴 때는 커밋된 뒤에 더하고, 줄일 때는 지금 예약해서(모자라면 NotEnoughStockException) 롤백되면 되돌린다
+     *    ==> 카운터가 item 재고보다 많아지는 순간(초과 판매)이 없다
+     */
+    public void adjust(Long itemId, int delta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("인기 상품 재고 조정은 트랜잭션 안에서만 할 수 있습니다.");
+        }
+        StripedStockCounter counter = counter(itemId); // 여기서 채우면 방금 잠근 item row를 REQUIRES_NEW 트랜잭션이 기다리므로 미리 채워져 있어야 한다
+        hotItemStockRepository.applyPendingStock(itemId);
+        if (delta < 0 && !counter.tryReserve(-delta)) {
+            throw new NotEnoughStockException("Not Enough Energy(stock quantity)");
+        }
+        hotItemStockRepository.adjustStock(itemId, delta);
+        if (delta == 0) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (delta > 0 && status == STATUS_COMMITTED) {
+                    counter.release(delta);
+                } else if (delta < 0 && status != STATUS_COMMITTED) {
+                    counter.release(-delta);
+                }
+            }
+        });
+    }
+
+    /* 지금 주문할 수 있는 재고(카운터가 없으면 채운다 - 트랜잭션 밖에서 호출) */
+    public long available(Long itemId) {
+        return loadCounter(itemId).available();
+    }
+
+    /* 대기 중인 차감분을 item 재고에 반영(write-behind) */
+    @Scheduled(fixedDelayString = "${jpashop.inventory.flush-interval-millis:200}")
+    public void flush() {
+        for (Long itemId : hotItemIds) {
+            if (!counters.containsKey(itemId)) {
+                try {
+                    loadCounter(itemId); // 시작할 때 불러오지 못한 카운터를 다시 채운다
+                } catch (RuntimeException e) {
+                    log.warn("[인기 상품] itemId={} 재고를 불러오지 못함, 다음 주기에 다시 시도", itemId, e);
+                }
+            }
+        }
+        for (Long itemId : counters.keySet()) {
+            try {
+                Long applied = requiresNewTransaction.execute(status -> hotItemStockRepository.applyPendingStock(itemId));
+                if (applied != null && applied > 0) {
+                    log.debug("[인기 상품] itemId={} 재고 {}개 반영", itemId, applied);
+                }
+            } catch (RuntimeException e) {
+                log.warn("[인기 상품] itemId={} 재고 반영 실패, 다음 주기에 다시 반영", itemId, e); // 대기 표시가 그대로 남으므로 유실 없음
+            }
+        }
+    }
+
+    /**
+     * 시작할 때 지난 실행에서 반영하지 못한 차감분을 반영하고 카운터를 채운다
+     * 설정에서 빠진 상품(지난 실행에서만 인기 상품)도 대기 중인 주문상품이 남아 있으면 같이 반영한다
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile() {
+        Set<Long> itemIds = new LinkedHashSet<>(hotItemIds);
+        itemIds.addAll(hotItemStockRepository.findItemIdsWithPendingStock());
+        for (Long itemId : itemIds) {
+            try {
+                if (isHot(itemId)) {
+                    log.info("[인기 상품] itemId={} 재고 {}개로 시작", itemId, available(itemId));
+                } else {
+                    Long applied = requiresNewTransaction.execute(status -> hotItemStockRepository.applyPendingStock(itemId));
+                    log.info("[인기 상품] itemId={} 인기 상품이 아니지만 반영되지 않았던 재고 {}개 반영", itemId, applied);
+                }
+            } catch (RuntimeException e) {
+                log.error("[인기 상품] itemId={} 재고를 불러오지 못함", itemId, e);
+            }
+        }
+    }
+
+    /* 종료할 때 마지막으로 반영 */
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    /* 주문 트랜잭션에서 쓰는 카운터 - 여기서 채우지 않는다 */
+    private StripedStockCounter counter(Long itemId) {
+        StripedStockCounter counter = counters.get(itemId);
+        if (counter == null) {
+            throw new IllegalStateException("인기 상품 재고를 아직 불러오지 못했습니다. itemId=" + itemId);
+        }
+        return counter;
+    }
+
+    /**
+     * 카운터를 채운다 - DB 조회(REQUIRES_NEW, item row 락)를 ConcurrentHashMap.computeIfAbsent() 안에서 하면
+     * 같은 칸(bin)을 쓰는 다른 스레드가 전부 조회가 끝날 때까지 막히므로, 맵 밖에서 만든 뒤 putIfAbsent()로 넣는다
+     * 동시에 두 번 채우면 먼저 넣은 쪽을 쓴다(버려지는 쪽은 대기분을 item 재고에 반영만 하므로 재고가 틀어지지 않는다)
+     */
+    private StripedStockCounter loadCounter(Long itemId) {
+        StripedStockCounter counter = counters.get(itemId);
+        if (counter != null) {
+            return counter;
+        }
+        StripedStockCounter loaded = load(itemId);
+        StripedStockCounter existing = counters.putIfAbsent(itemId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    /* 대기 중인 차감분을 먼저 반영해서 item 재고 == 실제 남은 재고로 만든 뒤 카운터를 만든다 */
+    private StripedStockCounter load(Long itemId) {
+        return requiresNewTransaction.execute(status -> {
+            long applied = hotItemStockRepository.applyPendingStock(itemId);
+            if (applied > 0) {
+                log.info("[인기 상품] itemId={} 반영되지 않았던 재고 {}개 반영", itemId, applied);
+            }
+            return new StripedStockCounter(hotItemStockRepository.findStockQuantity(itemId), stripes);
+        });
+    }
+}
@@ -1,5 +1,7 @@
 package jpabook.jpashop.service;
 
+import jpabook.jpashop.common.SecondLevelCacheEvictor;
+import jpabook.jpashop.common.retry.RetryOnOptimisticLock;
 import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.repository.ItemRepository;
 import lombok.RequiredArgsConstructor;
@@ -13,6 +15,8 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ItemService {
     private final ItemRepository itemRepository;
+    private final SecondLevelCacheEvictor secondLevelCacheEvictor;
+    private final HotItemInventory hotItemInventory;
 
     /* 저장로직은 readOnly = false이기에 */
     @Transactional
@@ -28,12 +32,20 @@ public class ItemService {
      * 코드가 길어지면 어디서 필드가 변경됐는지 파악하기 힘들기 때문에
      * setter를 이용하는 것보다 foundItem.change(price, name, stockQuantity);처럼
      * 비즈니스 로직을 엔티티에 생성하는 것이 DDD 유지/보수 측면에서 좋다
+     * 수정하는 사이 주문으로 재고가 바뀌면(version 증가) 낙관적 락에 걸리고, 최신 값을 다시 읽어서 수정한다
      */
+    @RetryOnOptimisticLock
     @Transactional
     public Item updateItem(Long itemId, String name, int price, int stockQuantity){
         //TODO: Book, Album, Movie에 따라서 수정할 수 있는 항목이 추가되는데 이 부분에 대해서 ItemController에서 할지 아님 다른 방법을 쓸지 정하기
         Item foundItem = itemRepository.findOne(itemId);
+        if (hotItemInventory.isHot(itemId)) {
+            // 인기 상품의 재고는 HotItemInventory가 관리하고 item 재고는 늦게 반영되므로 덮어쓰지 않고, 화면에 보였던 재고와의 차이만큼 조정한다
+            hotItemInventory.adjust(itemId, stockQuantity - foundItem.getStockQuantity());
+            stockQuantity = foundItem.getStockQuantity(); // adjust()가 다시 읽은 재고(대기분 반영 + 조정)
+        }
         foundItem.change(price, name, stockQuantity);
+        secondLevelCacheEvictor.evictAfterCommit(Item.class, itemId);
         return foundItem; //itemRepository.save(foundItem); 해당 코드를 사용하지 않아도 foundItem는 영속 상태의 엔티티라서 save()를 쓰지않아도 된다
     }
 
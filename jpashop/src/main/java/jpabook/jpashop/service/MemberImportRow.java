@@ -0,0 +1,19 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 회원 대량 가입의 한 줄
+ * 검증(@NotBlank 등)을 요청 단위로 걸면 한 줄만 틀려도 전체가 400으로 실패하므로 MemberService에서 줄마다 검증한다
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberImportRow {
+    private String name;
+    private String city;
+    private String street;
+    private String zipcode;
+}
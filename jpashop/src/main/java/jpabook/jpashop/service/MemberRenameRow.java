@@ -0,0 +1,16 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 회원 이름 일괄 변경의 한 줄(회원 id, 바꿀 이름)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberRenameRow {
+    private Long id;
+    private String name;
+}
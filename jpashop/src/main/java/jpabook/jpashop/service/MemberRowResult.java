@@ -0,0 +1,30 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 대량 가입/이름 변경의 줄별 처리 결과(요청의 index 순서 그대로)
+ */
+@Data
+@AllArgsConstructor
+public class MemberRowResult {
+
+    public enum Outcome {
+        CREATED, RENAMED, INVALID, DUPLICATE, NOT_FOUND
+    }
+
+    private int index; // 요청 목록에서의 순서(0부터)
+    private Long id;
+    private String name;
+    private Outcome outcome;
+    private String message; // 실패한 줄만
+
+    public static MemberRowResult success(int index, Long id, String name, Outcome outcome) {
+        return new MemberRowResult(index, id, name, outcome, null);
+    }
+
+    public static MemberRowResult fail(int index, Long id, String name, Outcome outcome, String message) {
+        return new MemberRowResult(index, id, name, outcome, message);
+    }
+}
@@ -1,12 +1,19 @@
 package jpabook.jpashop.service;
 
+import jpabook.jpashop.common.SecondLevelCacheEvictor;
+import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.MemberBulkRepository;
+import jpabook.jpashop.repository.MemberNameFilter;
+import jpabook.jpashop.repository.MemberNameIndex;
 import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.repository.OrderSummaryRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
+import java.util.*;
 
 @Service
 @Transactional(readOnly = true)
@@ -15,6 +22,11 @@ import java.util.List;
 public class MemberService {
 
     private final MemberRepository memberRepository;
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final SecondLevelCacheEvictor secondLevelCacheEvictor;
+    private final MemberNameIndex memberNameIndex;
+    private final MemberNameFilter memberNameFilter;
+    private final MemberBulkRepository memberBulkRepository;
 
     /**
      * 회원 가입
@@ -23,8 +35,17 @@ public class MemberService {
      */
     @Transactional
     public Long join(Member member) {
-        validateDuplicateMember(member);
-        memberRepository.save(member);
+        if (memberNameFilter.mightExist(member.getName())) {
+            validateDuplicateMember(member); // 블룸 필터가 "있을 수도 있음"이라고 할 때만 SELECT
+        }
+        try {
+            memberRepository.saveAndFlush(member); // 유니크 제약조건 위반을 여기서 바로 확인하기 위해 flush
+        } catch (DataIntegrityViolationException e) {
+            // 동시에 같은 이름으로 가입하거나 블룸 필터에 없던 이름(다른 서버에서 가입)이 중복인 경우
+            throw new IllegalStateException("이미 존재하는 회원입니다.", e);
+        }
+        memberNameFilter.put(member.getName());
+        memberNameIndex.putAfterCommit(member.getId(), member.getName()); // 이름 포함 검색용 n-gram 인덱스
         return member.getId();
     }
 
@@ -33,6 +54,8 @@ public class MemberService {
          * EXCEPTION 처리
          * 해당 로직의 경우 데이터의 안정성을 위해 DB의 Member 테이블의 name을 유니크 조건 걸어주는게 안전하다
          * 왜냐하면 findByName 같은 메소드를 호출할 때 실제로 Member의 데이터가 name을 갖고있어야 오류가 안 나기 때문
+         * ==> member.name에 유니크 제약조건(uk_member_name)을 추가했으므로, 여기서의 SELECT는 빠르게 실패하기 위한 용도다
+         *     (동시에 같은 이름으로 가입하면 둘 다 SELECT를 통과할 수 있지만 INSERT에서 한 쪽이 실패한다)
          */
         List<Member> findMembers = memberRepository.findByName(member.getName());
         if (!findMembers.isEmpty()) {
@@ -41,6 +64,110 @@ public class MemberService {
     }
 
 
+    /**
+     * 회원 대량 가입 - 줄별 결과를 요청 순서대로 반환
+     * 1. 메모리에서 한 번에 검증: 이름이 비었으면 INVALID, 요청 안에서 같은 이름이 또 나오면 뒤의 줄은 DUPLICATE
+     * 2. 블룸 필터가 "있을 수도 있음"이라고 한 이름만 모아서 IN 쿼리로 이미 가입된 이름을 확인(회원마다 SELECT X)
+     * 3. 나머지를 JDBC 배치 INSERT + 주기적인 clear()로 저장
+     * 검증과 INSERT 사이에 다른 요청이 같은 이름으로 가입하면 유니크 제약조건 때문에 전체가 롤백된다(다시 요청하면 그 줄은 DUPLICATE)
+     */
+    @Transactional
+    public List<MemberRowResult> importMembers(List<MemberImportRow> rows) {
+        MemberRowResult[] results = new MemberRowResult[rows.size()];
+        Set<String> namesInRequest = new HashSet<>();
+        List<String> mightExist = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            String name = rows.get(i).getName();
+            if (name == null || name.isBlank()) {
+                results[i] = MemberRowResult.fail(i, null, name, MemberRowResult.Outcome.INVALID, "회원의 이름은 공백일 수 없습니다.");
+            } else if (!namesInRequest.add(name)) {
+                results[i] = MemberRowResult.fail(i, null, name, MemberRowResult.Outcome.DUPLICATE, "요청 안에 같은 이름이 있습니다.");
+            } else if (memberNameFilter.mightExist(name)) {
+                mightExist.add(name);
+            }
+        }
+        Set<String> existingNames = memberBulkRepository.findExistingNames(mightExist);
+
+        List<Integer> newIndexes = new ArrayList<>();
+        List<Member> newMembers = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            MemberImportRow row = rows.get(i);
+            if (existingNames.contains(row.getName())) {
+                results[i] = MemberRowResult.fail(i, null, row.getName(), MemberRowResult.Outcome.DUPLICATE, "이미 존재하는 회원입니다.");
+                continue;
+            }
+            Member member = new Member();
+            member.setName(row.getName());
+            member.setAddress(new Address(row.getCity(), row.getStreet(), row.getZipcode()));
+            newIndexes.add(i);
+            newMembers.add(member);
+        }
+
+        memberBulkRepository.saveAll(newMembers);
+
+        for (int j = 0; j < newMembers.size(); j++) {
+            Member member = newMembers.get(j);
+            int index = newIndexes.get(j);
+            results[index] = MemberRowResult.success(index, member.getId(), member.getName(), MemberRowResult.Outcome.CREATED);
+            memberNameFilter.put(member.getName());
+            memberNameIndex.putAfterCommit(member.getId(), member.getName());
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * 회원 이름 일괄 변경 - 줄별 결과를 요청 순서대로 반환
+     * 1. 메모리에서 검증: id/이름이 비었으면 INVALID, 요청 안에서 같은 id나 같은 이름이 또 나오면 DUPLICATE
+     * 2. IN 쿼리 한 번(청크당)으로 존재하는 회원(NOT_FOUND)과 이미 사용 중인 이름(DUPLICATE)을 확인
+     *    이름을 서로 맞바꾸는 요청도 유니크 제약조건 때문에 DUPLICATE로 처리한다
+     * 3. CASE 문 UPDATE로 청크당 한 번에 변경(회원, 주문 요약)
+     */
+    @Transactional
+    public List<MemberRowResult> renameMembers(List<MemberRenameRow> rows) {
+        MemberRowResult[] results = new MemberRowResult[rows.size()];
+        Set<Long> idsInRequest = new HashSet<>();
+        Set<String> namesInRequest = new HashSet<>();
+        for (int i = 0; i < rows.size(); i++) {
+            MemberRenameRow row = rows.get(i);
+            if (row.getId() == null || row.getName() == null || row.getName().isBlank()) {
+                results[i] = MemberRowResult.fail(i, row.getId(), row.getName(), MemberRowResult.Outcome.INVALID, "회원 id와 이름은 필수입니다.");
+            } else if (!idsInRequest.add(row.getId()) || !namesInRequest.add(row.getName())) {
+                results[i] = MemberRowResult.fail(i, row.getId(), row.getName(), MemberRowResult.Outcome.DUPLICATE, "요청 안에 같은 회원 id나 이름이 있습니다.");
+            }
+        }
+
+        Map<Long, String> currentNameById = memberBulkRepository.findNamesByIds(idsInRequest);
+        Set<String> existingNames = memberBulkRepository.findExistingNames(namesInRequest);
+
+        Map<Long, String> newNameById = new LinkedHashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            MemberRenameRow row = rows.get(i);
+            String currentName = currentNameById.get(row.getId());
+            if (currentName == null) {
+                results[i] = MemberRowResult.fail(i, row.getId(), row.getName(), MemberRowResult.Outcome.NOT_FOUND, "존재하지 않는 회원입니다.");
+            } else if (!row.getName().equals(currentName) && existingNames.contains(row.getName())) {
+                results[i] = MemberRowResult.fail(i, row.getId(), row.getName(), MemberRowResult.Outcome.DUPLICATE, "이미 존재하는 회원입니다.");
+            } else {
+                newNameById.put(row.getId(), row.getName());
+                results[i] = MemberRowResult.success(i, row.getId(), row.getName(), MemberRowResult.Outcome.RENAMED);
+            }
+        }
+
+        memberBulkRepository.renameAll(newNameById);
+
+        newNameById.forEach((id, name) -> {
+            memberNameFilter.put(name);
+            memberNameIndex.putAfterCommit(id, name);
+        });
+        return Arrays.asList(results);
+    }
+
     /* 회원 전체 조회 */
     public List<Member> findMembers() {
         return memberRepository.findAll();
@@ -55,5 +182,14 @@ public class MemberService {
     public void update(Long id, String name){
         Member member = memberRepository.findById(id).get(); //영속상태
         member.setName(name); //변경감지(Dirty Check) 발생하고, @Transactional에 의해서 트랜잭션 관련 AOP가 끝나면 JPA가 commit/flush 처리
+        try {
+            memberRepository.flush(); // 이미 있는 이름으로 바꾸면 유니크 제약조건 위반을 커밋 전에 확인
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("이미 존재하는 회원입니다.", e);
+        }
+        orderSummaryRepository.updateMemberName(id, name); // 주문 요약에 복사해둔 회원 이름도 변경
+        memberNameIndex.putAfterCommit(id, name);
+        memberNameFilter.put(name);
+        secondLevelCacheEvictor.evictAfterCommit(Member.class, id);
     }
 }
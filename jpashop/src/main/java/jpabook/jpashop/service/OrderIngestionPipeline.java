@@ -0,0 +1,193 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 주문 묶음 처리(group commit) - 주문 요청마다 트랜잭션을 커밋하면 커밋 대기 시간(디스크 fsync)이 처리량의 상한이 되므로
+ * 요청을 큐에 모았다가 트랜잭션 한 번에 여러 건을 커밋한다
+ *
+ * 1. submit()은 요청을 크기가 정해진 큐(queue-capacity)에 넣고 바로 CompletableFuture를 돌려준다
+ *    큐가 가득 차면 기다리지 않고 RejectedExecutionException으로 실패시킨다(밀려드는 요청을 메모리에 무한히 쌓지 않도록)
+ *    ==> OrderController가 503(Retry-After)으로 응답한다
+ * 2. writer-threads개의 쓰기 스레드가 큐에서 최대 max-batch-size건씩 꺼내서 트랜잭션 하나로 처리한다
+ *    hibernate.jdbc.batch_size, 시퀀스 allocationSize와 같은 100건이면 INSERT도 테이블마다 배치 한 번으로 나간다
+ * 3. 재고 부족은 그 주문만 실패로 처리하고 나머지는 그대로 커밋한다(OrderService.orderInBatch()의 noRollbackFor)
+ *    그 밖의 예외로 묶음 트랜잭션이 롤백되면, 묶음의 주문을 한 건씩 각자의 트랜잭션으로 다시 처리해서 문제 있는 주문만 실패시킨다
+ * 4. 커밋이 끝난 뒤에 각 요청의 future를 주문 id(또는 실패 예외)로 완료한다
+ *
+ * enabled가 false면 submit()은 지금처럼 요청 스레드에서 주문마다 트랜잭션을 커밋한다
+ * 참고) 쓰기 스레드에서 커밋하므로 read/write 라우팅의 read-your-writes 쿠키는 남지 않는다
+ */
+@Slf4j
+@Component
+public class OrderIngestionPipeline {
+
+    private final OrderService orderService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int writerThreads;
+    private final int maxBatchSize;
+    private final BlockingQueue<OrderRequest> queue;
+    private final List<Thread> writers = new ArrayList<>();
+    private volatile boolean running;
+
+    public OrderIngestionPipeline(OrderService orderService,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${jpashop.order-ingestion.enabled:false}") boolean enabled,
+                                  @Value("${jpashop.order-ingestion.queue-capacity:10000}") int queueCapacity,
+                                  @Value("${jpashop.order-ingestion.writer-threads:2}") int writerThreads,
+                                  @Value("${jpashop.order-ingestion.max-batch-size:100}") int maxBatchSize) {
+        this.orderService = orderService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.writerThreads = writerThreads;
+        this.maxBatchSize = maxBatchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    /* 주문 요청 1건과 결과를 받을 future */
+    private static class OrderRequest {
+        private final Long memberId;
+        private final Long itemId;
+        private final int count;
+        private final CompletableFuture<Long> future = new CompletableFuture<>();
+
+        private OrderRequest(Long memberId, Long itemId, int count) {
+            this.memberId = memberId;
+            this.itemId = itemId;
+            this.count = count;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        Gauge.builder("jpashop.order_ingestion.queue", queue, BlockingQueue::size).register(meterRegistry);
+        for (int i = 0; i < writerThreads; i++) {
+            Thread writer = new Thread(this::drain, "order-writer-" + i);
+            writer.start();
+            writers.add(writer);
+        }
+    }
+
+    /**
+     * 새 요청은 받지 않고, 큐에 남은 요청을 모두 처리한 뒤 종료
+     * submit()이 running을 확인한 직후에 종료가 시작되면 쓰기 스레드가 끝난 뒤에 큐에 들어올 수 있으므로,
+     * 마지막으로 큐에 남은 요청을 실패시켜서 future가 영원히 완료되지 않는 일이 없게 한다
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        List<OrderRequest> leftovers = new ArrayList<>();
+        queue.drainTo(leftovers);
+        leftovers.forEach(request -> request.future.completeExceptionally(
+                new RejectedExecutionException("서버가 종료 중이라 주문을 처리하지 못했습니다. 잠시 후 다시 시도해주세요.")));
+    }
+
+    /**
+     * 주문 접수
+     * @return 커밋된 주문 id로 완료되는 future(재고 부족이면 NotEnoughStockException, 큐가 가득 차면 RejectedExecutionException)
+     */
+    public CompletableFuture<Long> submit(Long memberId, Long itemId, int count) {
+        if (!enabled) {
+            try {
+                return CompletableFuture.completedFuture(orderService.order(memberId, itemId, count));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        OrderRequest request = new OrderRequest(memberId, itemId, count);
+        if (!running || !queue.offer(request)) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("주문 대기열이 가득 찼습니다. 잠시 후 다시 시도해주세요."));
+        }
+        return request.future;
+    }
+
+    private void drain() {
+        List<OrderRequest> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                OrderRequest first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                batch.forEach(request -> request.future.completeExceptionally(e)); // 쓰기 스레드는 멈추지 않는다
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /* 묶음 1개를 트랜잭션 하나로 처리하고, 커밋이 끝난 뒤 future를 완료 */
+    private void process(List<OrderRequest> batch) {
+        meterRegistry.summary("jpashop.order_ingestion.batch_size").record(batch.size());
+        Object[] results = new Object[batch.size()]; // 주문 id 또는 재고 부족 예외
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = 0; i < batch.size(); i++) {
+                    OrderRequest request = batch.get(i);
+                    try {
+                        results[i] = orderService.orderInBatch(request.memberId, request.itemId, request.count);
+                    } catch (NotEnoughStockException e) {
+                        results[i] = e;
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("[주문 묶음 처리] {}건 묶음 커밋 실패, 한 건씩 다시 처리", batch.size(), e);
+            processOneByOne(batch);
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            if (results[i] instanceof Long orderId) {
+                batch.get(i).future.complete(orderId);
+            } else {
+                batch.get(i).future.completeExceptionally((Throwable) results[i]);
+            }
+        }
+    }
+
+    private void processOneByOne(List<OrderRequest> batch) {
+        for (OrderRequest request : batch) {
+            try {
+                request.future.complete(orderService.order(request.memberId, request.itemId, request.count));
+            } catch (RuntimeException e) {
+                request.future.completeExceptionally(e);
+            }
+        }
+    }
+}
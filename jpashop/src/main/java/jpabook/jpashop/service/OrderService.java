@@ -1,15 +1,28 @@
 package jpabook.jpashop.service;
 
+import jpabook.jpashop.common.SecondLevelCacheEvictor;
+import jpabook.jpashop.common.retry.RetryOnOptimisticLock;
 import jpabook.jpashop.domain.*;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.NotEnoughStockException;
 import jpabook.jpashop.repository.ItemRepository;
 import jpabook.jpashop.repository.MemberRepository;
 import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSummaryRepository;
+import jpabook.jpashop.repository.order.query.OrderListDto;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
@@ -19,6 +32,9 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final MemberRepository memberRepository;
     private final ItemRepository itemRepository;
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final SecondLevelCacheEvictor secondLevelCacheEvictor;
+    private final HotItemInventory hotItemInventory;
 
     /**
      * OrderService에서 order() 메서드를 만든 이유
@@ -28,11 +44,19 @@ public class OrderService {
      * TIP) 파라미터로 엔티티를 받으면 repository에서 가져온 영속성의 엔티티가 아니기에 식별자(id, name..)로 받는 것을 추천
      */
     //주문하기
+    @RetryOnOptimisticLock
     @Transactional
     public Long order(Long memberId, Long itemId, int count) {
         // 엔티티 조회
         Member member = memberRepository.findById(memberId).get();
-        Item item = itemRepository.findOne(itemId);
+        boolean hot = hotItemInventory.isHot(itemId);
+        Item item;
+        if (hot) {
+            hotItemInventory.reserve(itemId, count); // 인기 상품은 메모리에서 락 없이 차감하고 item 재고는 나중에 모아서 반영
+            item = itemRepository.findOne(itemId);
+        } else {
+            item = itemRepository.reserveStock(itemId, count); // 조건부 UPDATE 한 번으로 재고 확인 + 차감(동시 주문에도 갱신 손실 X)
+        }
 
         //배송정보 생성
         Delivery delivery = new Delivery();
@@ -47,7 +71,8 @@ public class OrderService {
          * 코드가 하나의 일관된 표준없이 작성될 가능성이 커진다.
          */
         //주문상품 생성
-        OrderItem orderItem = OrderItem.createOrderItem(item, item.getPrice(), count);
+        OrderItem orderItem = OrderItem.createReservedOrderItem(item, item.getPrice(), count);
+        orderItem.setStockPending(hot);
 
         //주문 생성
         Order order = Order.createOrder(member, delivery, orderItem);
@@ -64,11 +89,86 @@ public class OrderService {
          */
         //주문 저장
         orderRepository.save(order);
+        orderSummaryRepository.save(OrderSummary.from(order)); // 주문 목록용 조회 모델도 같은 트랜잭션에서 저장
+        secondLevelCacheEvictor.evictAfterCommit(Item.class, itemId); // 재고가 바뀐 상품은 2차 캐시에서 제거
 
         return order.getId();
     }
 
-    //주문 취소
+    /**
+     * 주문 묶음 처리(OrderIngestionPipeline)용 단건 주문 - 여러 주문을 담은 바깥 트랜잭션에 참여한다(MANDATORY)
+     * 재고 부족은 재고 UPDATE가 아무 row도 바꾸지 못했을 때(또는 인기 상품 카운터 차감 전에) 나므로 되돌릴 것이 없다
+     * ==> 묶음 트랜잭션을 롤백 대상으로 표시하지 않고 이 주문만 실패시킨다(noRollbackFor)
+     * order()를 내부 호출하므로 order()의 @Transactional, @RetryOnOptimisticLock은 다시 적용되지 않는다
+     */
+    @Transactional(propagation = Propagation.MANDATORY, noRollbackFor = NotEnoughStockException.class)
+    public Long orderInBatch(Long memberId, Long itemId, int count) {
+        return order(memberId, itemId, count);
+    }
+
+    /**
+     * 장바구니 주문 - 여러 상품을 주문 1건(트랜잭션 1번)으로 처리
+     * 1. 같은 상품이 여러 줄로 들어오면 합친 뒤 item_id 오름차순으로 정렬
+     * 2. item_id 오름차순으로 재고를 차감(조건부 UPDATE)
+     *    ==> 동시에 들어온 주문들이 항상 같은 순서로 row 락을 잡기 때문에 서로 락을 기다리는 데드락이 생기지 않는다
+     * 3. 차감이 끝난 상품들을 IN 쿼리 한 번으로 조회
+     * 4. Order 1건에 OrderItem을 모두 담아서 저장(cascade) ==> 커밋 시점에 flush 한 번으로 INSERT
+     * 5. 주문 목록용 조회 모델(OrderSummary)도 같은 트랜잭션에서 저장
+     * 인기 상품(HotItemInventory)은 2에서 row 대신 메모리 카운터에서 차감한다(락을 잡지 않으므로 순서와 무관)
+     */
+    @RetryOnOptimisticLock
+    @Transactional
+    public Long order(Long memberId, List<CartLine> cartLines) {
+        if (cartLines.isEmpty()) {
+            throw new IllegalArgumentException("주문할 상품이 없습니다.");
+        }
+        Member member = memberRepository.findById(memberId).get();
+
+        SortedMap<Long, Integer> countByItemId = new TreeMap<>();
+        for (CartLine cartLine : cartLines) {
+            countByItemId.merge(cartLine.getItemId(), cartLine.getCount(), Integer::sum);
+        }
+
+        Set<Long> hotItemIds = countByItemId.keySet().stream()
+                .filter(hotItemInventory::isHot)
+                .collect(Collectors.toSet());
+        countByItemId.forEach((itemId, count) -> {
+            if (hotItemIds.contains(itemId)) {
+                hotItemInventory.reserve(itemId, count);
+            } else {
+                itemRepository.decreaseStock(itemId, count);
+            }
+        });
+
+        Map<Long, Item> itemById = itemRepository.findAllByIds(countByItemId.keySet()).stream()
+                .collect(Collectors.toMap(Item::getId, item -> item));
+
+        OrderItem[] orderItems = countByItemId.entrySet().stream()
+                .map(entry -> {
+                    Item item = itemById.get(entry.getKey());
+                    OrderItem orderItem = OrderItem.createReservedOrderItem(item, item.getPrice(), entry.getValue());
+                    orderItem.setStockPending(hotItemIds.contains(entry.getKey()));
+                    return orderItem;
+                })
+                .toArray(OrderItem[]::new);
+
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+
+        Order order = Order.createOrder(member, delivery, orderItems);
+        orderRepository.save(order);
+        orderSummaryRepository.save(OrderSummary.from(order));
+        countByItemId.keySet().forEach(itemId -> secondLevelCacheEvictor.evictAfterCommit(Item.class, itemId));
+
+        return order.getId();
+    }
+
+    /**
+     * 주문 취소
+     * 재고 원복(Item.addStock())은 변경 감지라서 그 사이 다른 주문이 재고를 차감했다면(version 증가) 낙관적 락에 걸린다
+     * ==> 덮어쓰지 않고 새 트랜잭션에서 다시 읽어서 취소한다(@RetryOnOptimisticLock)
+     */
+    @RetryOnOptimisticLock
     @Transactional
     public void cancelOrder(Long orderId) {
         //주문 조회
@@ -76,6 +176,14 @@ public class OrderService {
 
         //주문 취소
         order.cancle();
+        orderSummaryRepository.findOne(orderId).cancel();
+        order.getOrderItems().forEach(orderItem -> {
+            Long itemId = orderItem.getItem().getId();
+            secondLevelCacheEvictor.evictAfterCommit(Item.class, itemId);
+            if (hotItemInventory.isHot(itemId)) {
+                hotItemInventory.releaseAfterCommit(itemId, orderItem.getCount()); // 인기 상품은 메모리 카운터에도 되돌린다
+            }
+        });
         /**
          * 기존의 JDBC 템플릿이나 MyBatis에서는 엔티티의 칼럼을 수정하면
          * 수정 SQL문을 그때마다 수행해야 했지만, JPA에서는 DirtyChecking을 통해
@@ -96,4 +204,9 @@ public class OrderService {
     public List<Order> findOrders(OrderSearch orderSearch){
         return orderRepository.findAllByQueryDsl(orderSearch);
     }
+
+    //주문 검색(주문 목록 화면용 DTO + 페이징)
+    public Page<OrderListDto> findOrderList(OrderSearch orderSearch, Pageable pageable) {
+        return orderRepository.findOrderList(orderSearch, pageable);
+    }
 }
@@ -0,0 +1,83 @@
+package jpabook.jpashop.api;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class OrderApiControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    public void 커서조회_limit이_0이하면_400() throws Exception {
+        mockMvc.perform(get("/api/v3.2/orders").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v3.2/orders").param("limit", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void 커서조회_limit이_최대값을_넘으면_400() throws Exception {
+        mockMvc.perform(get("/api/v3.2/orders").param("limit", "1001"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void 커서조회_잘못된_커서면_400() throws Exception {
+        mockMvc.perform(get("/api/v3.2/orders").param("cursor", "garbage"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v3.2/orders").param("cursor", Base64.getUrlEncoder().encodeToString("o:not-a-number".getBytes(StandardCharsets.UTF_8))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void 커서조회_정상() throws Exception {
+        mockMvc.perform(get("/api/v3.2/orders").param("limit", "1"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void V6_limit이_범위를_벗어나면_400() throws Exception {
+        mockMvc.perform(get("/api/v6/orders").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v6/orders").param("limit", "1001"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void V6_limit_없이_lastOrderId만_넘기면_400() throws Exception {
+        mockMvc.perform(get("/api/v6/orders").param("lastOrderId", "1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void V3_offset이나_limit이_범위를_벗어나면_400() throws Exception {
+        mockMvc.perform(get("/api/v3/orders").param("offset", "-1").param("limit", "10"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v3/orders").param("limit", "-1"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v3/orders").param("offset", "0").param("limit", "10"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void V7_offset이나_limit이_범위를_벗어나면_400() throws Exception {
+        mockMvc.perform(get("/api/v7/orders").param("offset", "-1"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v7/orders").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v7/orders").param("limit", "100000"))
+                .andExpect(status().isBadRequest());
+    }
+}
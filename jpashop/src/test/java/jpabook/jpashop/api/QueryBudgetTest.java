@@ -0,0 +1,59 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.support.QueryBudget;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * initDb의 주문 2건 기준으로 API별 쿼리 예산을 검증
+ * 주문이 2건뿐이라 1 + N도 같은 SELECT 2번으로 나타나므로, 1 + N 기준을 운영 기본값(6번)보다 엄격하게 2번으로 잡는다
+ */
+@SpringBootTest(properties = "jpashop.query-counter.n-plus-one-threshold=2")
+@AutoConfigureMockMvc
+public class QueryBudgetTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    @DisplayName("V2 간단 주문 조회는 default_batch_fetch_size 덕분에 주문 1 + 회원 1 + 배송 1번으로 끝나야 한다")
+    public void 간단주문조회_V2_쿼리예산() throws Exception {
+        mockMvc.perform(get("/api/v2/simple-orders"))
+                .andExpect(status().isOk())
+                .andExpect(QueryBudget.atMost(3))
+                .andExpect(QueryBudget.noNPlusOne());
+    }
+
+    @Test
+    @DisplayName("V2.1 주문 조회는 OrderGraphLoader로 주문 1 + 회원, 배송, 주문상품, 상품 각 1번으로 끝나야 한다")
+    public void 주문조회_V2_1_쿼리예산() throws Exception {
+        mockMvc.perform(get("/api/v2.1/orders"))
+                .andExpect(status().isOk())
+                .andExpect(QueryBudget.atMost(5))
+                .andExpect(QueryBudget.noNPlusOne());
+    }
+
+    @Test
+    @DisplayName("V4 주문 조회는 주문마다 주문상품을 따로 조회하는 1 + N 구조다")
+    public void 주문조회_V4_1_플러스_N_감지() throws Exception {
+        mockMvc.perform(get("/api/v4/orders"))
+                .andExpect(status().isOk())
+                .andExpect(QueryBudget.nPlusOneDetected());
+    }
+
+    @Test
+    @DisplayName("V5 주문 조회는 주문 1 + 주문상품 IN 1번으로 끝나야 한다")
+    public void 주문조회_V5_쿼리예산() throws Exception {
+        mockMvc.perform(get("/api/v5/orders"))
+                .andExpect(status().isOk())
+                .andExpect(QueryBudget.atMost(2))
+                .andExpect(QueryBudget.noNPlusOne());
+    }
+}
@@ -0,0 +1,42 @@
+package jpabook.jpashop.api;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * jpashop.jpa.strict-fetch=LOG - 트랜잭션 밖(OSIV 구간) 지연로딩은 로그만 남기고 응답은 그대로
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:${random.uuid};DB_CLOSE_DELAY=-1",
+        "jpashop.jpa.strict-fetch=LOG"})
+@AutoConfigureMockMvc
+@DirtiesContext
+@ExtendWith(OutputCaptureExtension.class)
+public class StrictFetchModeLogTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    public void 트랜잭션_밖_지연로딩은_로그만_남긴다(CapturedOutput output) throws Exception {
+        //when
+        mockMvc.perform(get("/api/v2/simple-orders"))
+                .andExpect(status().isOk());
+
+        //then
+        assertTrue(output.getOut().contains("GET /api/v2/simple-orders (jpabook.jpashop.api.OrderSimpleApiController#ordersV2"),
+                "엔드포인트와 함께 경고 로그를 남겨야 한다");
+        assertTrue(output.getOut().contains("jpabook.jpashop.domain.Member#"), "지연로딩한 대상을 남겨야 한다");
+    }
+}
@@ -0,0 +1,81 @@
+package jpabook.jpashop.api;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.exception.UnplannedLazyLoadException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * jpashop.jpa.strict-fetch=THROW - 트랜잭션 밖(OSIV 구간) 지연로딩은 예외, 서비스 트랜잭션 안의 지연로딩은 그대로 허용
+ * 리스너를 SessionFactory에 등록하므로 다른 테스트와 컨텍스트(공유 DB)를 같이 쓰지 않는다
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:${random.uuid};DB_CLOSE_DELAY=-1",
+        "jpashop.jpa.strict-fetch=THROW"})
+@AutoConfigureMockMvc
+@DirtiesContext
+public class StrictFetchModeThrowTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void clear() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void 트랜잭션_밖_지연로딩은_예외() {
+        //when
+        Exception e = assertThrows(Exception.class, () -> mockMvc.perform(get("/api/v2/simple-orders")));
+
+        //then
+        assertInstanceOf(UnplannedLazyLoadException.class, rootCause(e), "V2는 컨트롤러에서 회원, 배송을 지연로딩한다");
+    }
+
+    @Test
+    public void 서비스_트랜잭션_안의_지연로딩은_허용() {
+        //given
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest("GET", "/orders")));
+
+        //when
+        String memberName = new TransactionTemplate(transactionManager).execute(status -> {
+            Order order = entityManager.createQuery("SELECT o FROM Order o", Order.class)
+                    .setMaxResults(1)
+                    .getSingleResult();
+            order.getOrderItems().size(); // 컬렉션 초기화
+            return order.getMember().getName(); // 프록시 초기화
+        });
+
+        //then
+        assertNotNull(memberName);
+    }
+
+    private Throwable rootCause(Throwable e) {
+        Throwable cause = e;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+}
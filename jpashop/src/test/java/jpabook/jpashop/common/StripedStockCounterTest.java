@@ -0,0 +1,74 @@
+package jpabook.jpashop.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StripedStockCounterTest {
+
+    @Test
+    public void 여러_칸에_나뉜_재고를_모아서_차감() {
+        //given
+        StripedStockCounter counter = new StripedStockCounter(3, 3); // 칸마다 1개씩
+
+        //when
+        boolean reserved = counter.tryReserve(3);
+
+        //then
+        assertTrue(reserved, "한 칸에 모자라도 합계가 충분하면 차감해야 한다");
+        assertEquals(0, counter.available());
+        assertFalse(counter.tryReserve(1), "재고가 없으면 차감하지 않는다");
+    }
+
+    @Test
+    public void 재고가_모자라면_되돌림() {
+        //given
+        StripedStockCounter counter = new StripedStockCounter(5, 4);
+
+        //when
+        boolean reserved = counter.tryReserve(6);
+
+        //then
+        assertFalse(reserved);
+        assertEquals(5, counter.available(), "실패하면 중간에 꺼낸 재고를 되돌려야 한다");
+    }
+
+    @Test
+    public void 동시_차감_초과판매_없음() throws Exception {
+        //given
+        int stock = 10_000;
+        StripedStockCounter counter = new StripedStockCounter(stock, 8);
+        AtomicLong reserved = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch done = new CountDownLatch(16);
+
+        //when
+        for (int thread = 0; thread < 16; thread++) {
+            int quantity = 1 + thread % 3;
+            executor.execute(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    if (counter.tryReserve(quantity)) {
+                        reserved.addAndGet(quantity);
+                        if (i % 10 == 0) { // 가끔 취소
+                            counter.release(quantity);
+                            reserved.addAndGet(-quantity);
+                        }
+                    }
+                }
+                done.countDown();
+            });
+        }
+        done.await(1, TimeUnit.MINUTES);
+        executor.shutdown();
+
+        //then
+        assertTrue(counter.available() >= 0, "재고가 음수가 되면 안 된다");
+        assertEquals(stock, counter.available() + reserved.get(), "남은 재고 + 차감한 수량은 처음 재고와 같아야 한다");
+    }
+}
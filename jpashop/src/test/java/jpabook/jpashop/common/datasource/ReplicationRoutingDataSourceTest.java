@@ -0,0 +1,111 @@
+package jpabook.jpashop.common.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReplicationRoutingDataSourceTest {
+
+    ReplicationRoutingDataSource routingDataSource =
+            new ReplicationRoutingDataSource(List.of("replica-0", "replica-1"), true, Duration.ofSeconds(1));
+
+    @AfterEach
+    public void clear() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        }
+        TransactionSynchronizationManager.clear();
+        RequestContextHolder.resetRequestAttributes();
+        ReadYourWrites.clear();
+    }
+
+    @Test
+    public void 읽기전용_트랜잭션은_replica를_번갈아_사용한다() {
+        //given
+        readOnlyTransaction();
+
+        //when
+        Object first = routingDataSource.determineCurrentLookupKey();
+        Object second = routingDataSource.determineCurrentLookupKey();
+        Object third = routingDataSource.determineCurrentLookupKey();
+
+        //then
+        assertEquals("replica-0", first);
+        assertEquals("replica-1", second);
+        assertEquals("replica-0", third, "라운드 로빈으로 다시 첫 번째 replica를 사용해야 한다");
+    }
+
+    @Test
+    public void 쓰기_트랜잭션은_primary를_사용한다() {
+        //given
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.initSynchronization();
+
+        //when
+        Object key = routingDataSource.determineCurrentLookupKey();
+
+        //then
+        assertEquals(ReplicationRoutingDataSource.PRIMARY, key);
+        assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size(), "커밋 후 primary 고정을 위한 동기화가 등록되어야 한다");
+    }
+
+    @Test
+    public void 방금_쓰기를_한_요청의_읽기는_primary를_사용한다() {
+        //given
+        readOnlyTransaction();
+        ReadYourWrites.pinToPrimary();
+
+        //when
+        Object key = routingDataSource.determineCurrentLookupKey();
+
+        //then
+        assertEquals(ReplicationRoutingDataSource.PRIMARY, key, "read-your-writes가 켜져 있으면 replica를 사용하면 안된다");
+    }
+
+    @Test
+    public void 요청_스레드에서_쓰기가_커밋되면_primary로_고정한다() {
+        //given
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(), response));
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.initSynchronization();
+        routingDataSource.determineCurrentLookupKey();
+
+        //when
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        //then
+        assertTrue(ReadYourWrites.isPinnedToPrimary());
+        assertNotNull(response.getCookie(ReadYourWrites.COOKIE_NAME), "다음 요청도 primary로 보내도록 쿠키를 내려야 한다");
+    }
+
+    @Test
+    public void 요청_스레드가_아니면_쓰기가_커밋되어도_고정하지_않는다() {
+        //given
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.initSynchronization();
+        routingDataSource.determineCurrentLookupKey();
+
+        //when
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        //then
+        assertFalse(ReadYourWrites.isPinnedToPrimary(), "풀어줄 필터가 없는 스레드(스케줄러, order-writer 등)는 고정하면 안된다");
+    }
+
+    private void readOnlyTransaction() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    }
+}
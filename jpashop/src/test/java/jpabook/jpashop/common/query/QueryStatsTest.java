@@ -0,0 +1,50 @@
+package jpabook.jpashop.common.query;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QueryStatsTest {
+
+    QueryStats stats = new QueryStats();
+
+    @Test
+    public void 같은_SELECT가_기준_이상_반복되면_1_플러스_N() {
+        //given
+        String sql = "select oi.order_item_id from order_item oi where oi.order_id=?";
+        for (int i = 0; i < 6; i++) {
+            stats.addStatement(sql, 0);
+        }
+
+        //when
+        List<String> repeated = stats.findRepeatedStatements(6);
+
+        //then
+        assertEquals(List.of(sql), repeated);
+    }
+
+    @Test
+    public void 기준보다_적게_반복된_SELECT는_제외() {
+        //given
+        for (int i = 0; i < 5; i++) {
+            stats.addStatement("select i.item_id from item i where i.item_id in (?,?)", 0); // batch fetch IN 쿼리 반복
+        }
+
+        //when, then
+        assertTrue(stats.findRepeatedStatements(6).isEmpty());
+    }
+
+    @Test
+    public void 반복된_UPDATE는_1_플러스_N이_아니다() {
+        //given
+        for (int i = 0; i < 10; i++) {
+            stats.addStatement("update item set stock_quantity=stock_quantity-? where item_id=? and stock_quantity>=?", 0); // 장바구니 상품별 재고 차감
+        }
+
+        //when, then
+        assertTrue(stats.findRepeatedStatements(6).isEmpty(), "의도한 UPDATE 반복은 1 + N으로 세면 안된다");
+        assertEquals(10, stats.getStatementCount(), "SQL 수에는 그대로 포함되어야 한다");
+    }
+}
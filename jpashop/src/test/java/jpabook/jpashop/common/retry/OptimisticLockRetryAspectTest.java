@@ -0,0 +1,85 @@
+package jpabook.jpashop.common.retry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class OptimisticLockRetryAspectTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    OptimisticLockRetryAspect aspect = new OptimisticLockRetryAspect(meterRegistry, 3, Duration.ZERO, Duration.ZERO);
+    ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+
+    @BeforeEach
+    public void setUp() {
+        Signature signature = mock(Signature.class);
+        when(signature.toShortString()).thenReturn("ItemService.updateItem(..)");
+        when(joinPoint.getSignature()).thenReturn(signature);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    public void 충돌하면_다시_실행() throws Throwable {
+        //given
+        when(joinPoint.proceed())
+                .thenThrow(new ObjectOptimisticLockingFailureException("Item", 1L))
+                .thenThrow(new ObjectOptimisticLockingFailureException("Item", 1L))
+                .thenReturn(1L);
+
+        //when
+        Object result = aspect.retry(joinPoint);
+
+        //then
+        assertEquals(1L, result);
+        verify(joinPoint, times(3)).proceed();
+        assertEquals(2, meterRegistry.counter("jpashop.optimistic_lock.retries", "method", "ItemService.updateItem(..)").count());
+    }
+
+    @Test
+    public void 최대_시도_횟수를_넘으면_예외() throws Throwable {
+        //given
+        when(joinPoint.proceed()).thenThrow(new ObjectOptimisticLockingFailureException("Item", 1L));
+
+        //when, then
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> aspect.retry(joinPoint));
+        verify(joinPoint, times(3)).proceed();
+        assertEquals(1, meterRegistry.counter("jpashop.optimistic_lock.failures", "method", "ItemService.updateItem(..)").count());
+    }
+
+    @Test
+    public void 바깥_트랜잭션이_있으면_재시도하지_않음() throws Throwable {
+        //given
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        when(joinPoint.proceed()).thenThrow(new ObjectOptimisticLockingFailureException("Item", 1L));
+
+        //when, then
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> aspect.retry(joinPoint));
+        verify(joinPoint, times(1)).proceed();
+    }
+
+    @Test
+    public void 대기_시간은_최대값을_넘지_않음() {
+        //given
+        OptimisticLockRetryAspect backoffAspect = new OptimisticLockRetryAspect(meterRegistry, 10, Duration.ofMillis(20), Duration.ofMillis(200));
+
+        //when, then
+        for (int attempt = 1; attempt <= 10; attempt++) {
+            long backoff = backoffAspect.backoffMillis(attempt);
+            assertTrue(backoff >= 0 && backoff <= Math.min(200, 20L << (attempt - 1)), "0 ~ min(최대값, 20ms * 2^(시도-1)) 사이여야 한다");
+        }
+    }
+}
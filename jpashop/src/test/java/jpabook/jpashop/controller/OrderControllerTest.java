@@ -0,0 +1,54 @@
+package jpabook.jpashop.controller;
+
+import jpabook.jpashop.service.OrderIngestionPipeline;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 주문 대기열을 실제로 가득 채우지 않고 OrderIngestionPipeline을 MockBean으로 바꿔서 응답만 확인한다
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:${random.uuid};DB_CLOSE_DELAY=-1") // MockBean으로 컨텍스트가 따로 뜨므로 공유 DB를 건드리지 않도록 전용 DB
+@AutoConfigureMockMvc
+@DirtiesContext
+public class OrderControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @MockBean
+    OrderIngestionPipeline orderIngestionPipeline;
+
+    @Test
+    public void 주문_대기열이_가득_차면_503() throws Exception {
+        //given
+        given(orderIngestionPipeline.submit(anyLong(), anyLong(), anyInt()))
+                .willReturn(CompletableFuture.failedFuture(new RejectedExecutionException("주문 대기열이 가득 찼습니다. 잠시 후 다시 시도해주세요.")));
+
+        //when
+        MvcResult result = mockMvc.perform(post("/order").param("memberId", "1").param("itemId", "1").param("count", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists("Retry-After"));
+    }
+}
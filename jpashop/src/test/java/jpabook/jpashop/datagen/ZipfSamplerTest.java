@@ -0,0 +1,66 @@
+package jpabook.jpashop.datagen;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ZipfSamplerTest {
+
+    @Test
+    public void 같은_seed면_같은_값() {
+        //given
+        ZipfSampler sampler1 = new ZipfSampler(1000, 1.1, new SplittableRandom(42));
+        ZipfSampler sampler2 = new ZipfSampler(1000, 1.1, new SplittableRandom(42));
+        SplittableRandom random1 = new SplittableRandom(7);
+        SplittableRandom random2 = new SplittableRandom(7);
+
+        //when, then
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(sampler1.sample(random1), sampler2.sample(random2), "seed가 같으면 결과도 같아야 한다");
+        }
+    }
+
+    @Test
+    public void 인기_값에_쏠림() {
+        //given
+        int n = 1000;
+        ZipfSampler sampler = new ZipfSampler(n, 1.1, new SplittableRandom(42));
+        SplittableRandom random = new SplittableRandom(7);
+        int[] counts = new int[n];
+
+        //when
+        int samples = 100_000;
+        for (int i = 0; i < samples; i++) {
+            counts[sampler.sample(random)]++;
+        }
+
+        //then
+        int max = 0;
+        for (int count : counts) {
+            max = Math.max(max, count);
+        }
+        assertEquals(max, counts[sampler.hottest()], "가장 많이 뽑힌 값이 hottest()여야 한다");
+        assertTrue(counts[sampler.hottest()] > samples / 10, "균등 분포(0.1%)보다 훨씬 많이 뽑혀야 한다");
+    }
+
+    @Test
+    public void 지수가_0이면_균등_분포() {
+        //given
+        int n = 10;
+        ZipfSampler sampler = new ZipfSampler(n, 0, new SplittableRandom(42));
+        SplittableRandom random = new SplittableRandom(7);
+        int[] counts = new int[n];
+
+        //when
+        for (int i = 0; i < 100_000; i++) {
+            counts[sampler.sample(random)]++;
+        }
+
+        //then
+        for (int count : counts) {
+            assertTrue(Math.abs(count - 10_000) < 1_000, "각 값이 약 10%씩 뽑혀야 한다");
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package jpabook.jpashop.load;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.service.CartLine;
+import jpabook.jpashop.service.HotItemInventory;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderService;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 인기 상품 몇 개에 주문을 동시에 몰아서 주문(재고 차감) 경로의 처리량/지연시간과 초과 판매(oversell) 여부를 확인하는 부하 테스트
+ * 주문/재고 관련 동시성 코드를 바꿀 때마다 돌려서 숫자와 정합성을 같이 본다
+ *
+ * 1. 상품 hotItems개(재고 stock개씩)에 orders건의 주문을 threads개 스레드로 동시에 보낸다
+ *    절반은 단건 주문(OrderService.order(memberId, itemId, count)), 절반은 상품 2개 장바구니 주문
+ *    성공한 주문 중 cancelPercent%는 바로 취소한다(재고 원복은 변경 감지 + @Version, 충돌하면 @RetryOnOptimisticLock이 재시도)
+ * 2. 락 충돌(데드락, 락 타임아웃, 낙관적 락 실패)은 최대 MAX_ATTEMPTS번까지 다시 시도하고 횟수를 센다
+ * 3. 주문 1건의 지연시간(재시도 포함)을 HdrHistogram에 기록해서 처리량과 백분위수를 출력한다
+ * 4. 끝나면 상품마다 "남은 재고 + 주문된 수량(취소 제외) == 처음 재고"인지 확인한다
+ *
+ * 평소 gradle test에서는 빠지고(@Tag("load")) gradle loadTest로만 실행한다
+ * -Dload.hotItemMode=true면 상품을 인기 상품 모드로 지정하고, 검증 전에 item 재고 반영(flush())을 마친다
+ * 실행 예) gradle loadTest -Dload.threads=200 -Dload.orders=20000 -Dload.hotItems=3 -Dload.stock=5000
+ */
+@Tag("load")
+@SpringBootTest
+public class OrderContentionLoadTest {
+
+    private static final int MAX_ATTEMPTS = 5;
+    private static final int H2_DEADLOCK_1 = 40001; // org.h2.api.ErrorCode.DEADLOCK_1(h2는 runtimeOnly라 컴파일 시점에 없음)
+    private static final int MYSQL_ER_LOCK_DEADLOCK = 1213;
+
+    private final int threads = Integer.getInteger("load.threads", 64);
+    private final int orders = Integer.getInteger("load.orders", 5000);
+    private final int hotItems = Integer.getInteger("load.hotItems", 3);
+    private final int stock = Integer.getInteger("load.stock", 2000); // 주문 수량 합계보다 적게 잡아서 품절(NotEnoughStockException)까지 겪게 한다
+    private final int cancelPercent = Integer.getInteger("load.cancelPercent", 10);
+    private final boolean hotItemMode = Boolean.getBoolean("load.hotItemMode"); // true면 인기 상품 모드(HotItemInventory)로 비교
+
+    @Autowired
+    OrderService orderService;
+
+    @Autowired
+    ItemService itemService;
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    HotItemInventory hotItemInventory;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    /* 부하 중에 센 값들 */
+    static class Stats {
+        final Histogram latency = new ConcurrentHistogram(TimeUnit.SECONDS.toMicros(60), 3); // 마이크로초
+        final AtomicLong succeeded = new AtomicLong();
+        final AtomicLong soldOut = new AtomicLong();
+        final AtomicLong retries = new AtomicLong();
+        final AtomicLong deadlocks = new AtomicLong();
+        final AtomicLong lockTimeouts = new AtomicLong();
+        final AtomicLong optimisticLockFailures = new AtomicLong();
+        final AtomicLong gaveUp = new AtomicLong();
+        final AtomicLong canceled = new AtomicLong();
+        final AtomicLong cancelFailed = new AtomicLong(); // @RetryOnOptimisticLock 재시도 후에도 락 충돌
+        final ConcurrentLinkedQueue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+    }
+
+    @Test
+    public void 인기상품_동시주문_초과판매_없음() throws Exception {
+        //given
+        String prefix = "load-" + System.nanoTime() + "-";
+        List<Long> itemIds = new ArrayList<>();
+        for (int i = 0; i < hotItems; i++) {
+            Book book = Book.createBook(null, prefix + "book-" + i, 10000, stock, "author", "isbn");
+            itemService.saveItem(book);
+            itemIds.add(book.getId());
+            if (hotItemMode) {
+                hotItemInventory.markHot(book.getId());
+            }
+        }
+        List<Long> memberIds = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Member member = new Member();
+            member.setName(prefix + "member-" + i);
+            member.setAddress(new Address("Seoul", "street", "00000"));
+            memberIds.add(memberService.join(member));
+        }
+
+        Stats stats = new Stats();
+        AtomicLongArray orderedByItem = new AtomicLongArray(hotItems); // 성공한 주문의 상품별 수량(DB 합계와 교차 확인용)
+        ExecutorService executor = Executors.newFixedThreadPool(threads); // Java 17이라 가상 스레드 대신 플랫폼 스레드 풀
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(orders);
+
+        //when
+        for (int i = 0; i < orders; i++) {
+            SplittableRandom random = new SplittableRandom(i); // 주문마다 seed를 고정해서 같은 설정이면 같은 주문 내용
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    placeOrder(random, itemIds, memberIds, stats, orderedByItem);
+                } catch (Throwable e) {
+                    stats.unexpected.add(e);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        long startNanos = System.nanoTime();
+        start.countDown();
+        boolean finished = done.await(10, TimeUnit.MINUTES);
+        long elapsedNanos = System.nanoTime() - startNanos;
+        executor.shutdownNow();
+
+        //then
+        report(stats, elapsedNanos);
+        assertTrue(finished, "제한 시간 안에 모든 주문이 끝나야 한다");
+        assertTrue(stats.unexpected.isEmpty(), "예상하지 못한 예외: " + stats.unexpected.peek());
+        assertEquals(0, stats.deadlocks.get(), "상품 id 순서로 재고를 차감하므로 데드락이 없어야 한다");
+
+        if (hotItemMode) {
+            hotItemInventory.flush();
+        }
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        for (int i = 0; i < hotItems; i++) {
+            Long itemId = itemIds.get(i);
+            int index = i;
+            transactionTemplate.executeWithoutResult(status -> {
+                int remaining = entityManager.createQuery("SELECT i.stockQuantity FROM Item i WHERE i.id = :itemId", Integer.class)
+                        .setParameter("itemId", itemId)
+                        .getSingleResult();
+                long ordered = entityManager.createQuery(
+                                "SELECT COALESCE(SUM(oi.count), 0) FROM OrderItem oi " +
+                                        "WHERE oi.item.id = :itemId AND oi.order.status = :status", Long.class)
+                        .setParameter("itemId", itemId)
+                        .setParameter("status", OrderStatus.ORDER)
+                        .getSingleResult();
+
+                assertTrue(remaining >= 0, "재고가 음수가 되면 안 된다");
+                assertEquals(stock, remaining + ordered, "남은 재고 + 주문된 수량은 처음 재고와 같아야 한다(itemId=" + itemId + ")");
+                assertEquals(orderedByItem.get(index), ordered, "성공한 주문 수량과 DB의 주문상품 수량이 같아야 한다(itemId=" + itemId + ")");
+            });
+        }
+    }
+
+    /* 주문 1건(재시도 포함) + 일부는 취소 */
+    private void placeOrder(SplittableRandom random, List<Long> itemIds, List<Long> memberIds,
+                            Stats stats, AtomicLongArray orderedByItem) {
+        Long memberId = memberIds.get(random.nextInt(memberIds.size()));
+        int first = random.nextInt(hotItems);
+        int firstCount = 1 + random.nextInt(3);
+        boolean cart = hotItems > 1 && random.nextBoolean();
+        int second = cart ? (first + 1 + random.nextInt(hotItems - 1)) % hotItems : -1;
+        int secondCount = 1 + random.nextInt(3);
+
+        long startNanos = System.nanoTime();
+        Long orderId;
+        try {
+            orderId = withLockRetry(stats, () -> cart
+                    ? orderService.order(memberId, List.of(
+                            new CartLine(itemIds.get(first), firstCount),
+                            new CartLine(itemIds.get(second), secondCount)))
+                    : orderService.order(memberId, itemIds.get(first), firstCount));
+        } catch (NotEnoughStockException e) {
+            stats.soldOut.incrementAndGet();
+            return;
+        } finally {
+            stats.latency.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+        }
+        if (orderId == null) {
+            return;
+        }
+        stats.succeeded.incrementAndGet();
+        orderedByItem.addAndGet(first, firstCount);
+        if (cart) {
+            orderedByItem.addAndGet(second, secondCount);
+        }
+
+        if (random.nextInt(100) < cancelPercent && cancelOrder(orderId, stats)) {
+            orderedByItem.addAndGet(first, -firstCount);
+            if (cart) {
+                orderedByItem.addAndGet(second, -secondCount);
+            }
+        }
+    }
+
+    /* 락 충돌이면 최대 MAX_ATTEMPTS번까지 다시 실행, 끝내 실패하면 null */
+    private <T> T withLockRetry(Stats stats, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (PessimisticLockingFailureException | OptimisticLockingFailureException e) {
+                if (isDeadlock(e)) {
+                    stats.deadlocks.incrementAndGet();
+                } else if (e instanceof OptimisticLockingFailureException) {
+                    stats.optimisticLockFailures.incrementAndGet();
+                } else {
+                    stats.lockTimeouts.incrementAndGet();
+                }
+                if (attempt == MAX_ATTEMPTS) {
+                    stats.gaveUp.incrementAndGet();
+                    return null;
+                }
+                stats.retries.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Spring 6은 데드락을 CannotAcquireLockException(락 타임아웃과 같은 타입)으로 번역하므로 예외 타입으로는 구분할 수 없다
+     * 원인 체인의 가장 안쪽 SQLException의 SQLState(40001: serialization failure/deadlock, 40P01: PostgreSQL deadlock)나
+     * 벤더 에러 코드(H2 ErrorCode.DEADLOCK_1 = 40001, MySQL ER_LOCK_DEADLOCK = 1213)로 판단한다
+     */
+    private static boolean isDeadlock(Throwable e) {
+        SQLException root = null;
+        for (Throwable cause = e; cause != null && cause != cause.getCause(); cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException) {
+                root = sqlException;
+            }
+        }
+        if (root == null) {
+            return false;
+        }
+        return "40001".equals(root.getSQLState()) || "40P01".equals(root.getSQLState())
+                || root.getErrorCode() == H2_DEADLOCK_1 || root.getErrorCode() == MYSQL_ER_LOCK_DEADLOCK;
+    }
+
+    /* 취소에 성공하면 true(재고가 원복됐으므로 주문 수량에서 뺀다), 락 충돌은 @RetryOnOptimisticLock 재시도 후의 실패만 센다 */
+    private boolean cancelOrder(Long orderId, Stats stats) {
+        if (withLockRetry(stats, () -> {
+            orderService.cancelOrder(orderId);
+            return orderId;
+        }) == null) {
+            stats.cancelFailed.incrementAndGet();
+            return false;
+        }
+        stats.canceled.incrementAndGet();
+        return true;
+    }
+
+    private void report(Stats stats, long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        Histogram latency = stats.latency;
+        System.out.printf("""
+                        [주문 경합 부하 테스트] threads=%d, orders=%d, hotItems=%d, stock=%d, hotItemMode=%s
+                        소요 %.2fs, 처리량 %.1f orders/s (성공 %d, 품절 %d, 포기 %d, 취소 %d, 취소 실패 %d)
+                        지연시간(ms) p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f
+                        재시도 %d (데드락 %d, 락 타임아웃 %d, 낙관적 락 실패 %d)
+                        """,
+                threads, orders, hotItems, stock, hotItemMode,
+                seconds, orders / seconds, stats.succeeded.get(), stats.soldOut.get(), stats.gaveUp.get(),
+                stats.canceled.get(), stats.cancelFailed.get(),
+                latency.getValueAtPercentile(50) / 1000.0, latency.getValueAtPercentile(90) / 1000.0,
+                latency.getValueAtPercentile(99) / 1000.0, latency.getValueAtPercentile(99.9) / 1000.0,
+                latency.getMaxValue() / 1000.0,
+                stats.retries.get(), stats.deadlocks.get(), stats.lockTimeouts.get(), stats.optimisticLockFailures.get());
+    }
+}
@@ -0,0 +1,80 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.exception.TooManySearchMatchesException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MemberNameIndexTest {
+
+    MemberNameIndex memberNameIndex = new MemberNameIndex(null); // rebuild()를 호출하지 않으면 DB를 쓰지 않는다
+
+    @Test
+    public void 이름_포함_검색() {
+        //given
+        memberNameIndex.put(1L, "Oh Jaeuk");
+        memberNameIndex.put(2L, "Eom Jiwon");
+        memberNameIndex.put(3L, "홍길동");
+
+        //when, then
+        assertEquals(Set.of(1L), memberNameIndex.findIdsContaining("jae"), "대소문자를 구분하지 않아야 한다");
+        assertEquals(Set.of(3L), memberNameIndex.findIdsContaining("길동"));
+        assertEquals(Set.of(1L, 2L), memberNameIndex.findIdsContaining("j"), "한 글자 검색어도 찾아야 한다");
+        assertEquals(Set.of(), memberNameIndex.findIdsContaining("kim"));
+    }
+
+    @Test
+    public void 바이그램은_모두_있지만_연속되지_않으면_제외() {
+        //given
+        memberNameIndex.put(1L, "abxbc"); // ab, bx, xb, bc
+
+        //when
+        Set<Long> result = memberNameIndex.findIdsContaining("abc"); // ab, bc
+
+        //then
+        assertTrue(result.isEmpty(), "바이그램 교집합 후보는 실제 포함 여부를 한 번 더 확인해야 한다");
+    }
+
+    @Test
+    public void 이름_변경시_이전_이름으로_검색되지_않는다() {
+        //given
+        memberNameIndex.put(1L, "Oh");
+
+        //when
+        memberNameIndex.put(1L, "Eom");
+
+        //then
+        assertTrue(memberNameIndex.findIdsContaining("Oh").isEmpty());
+        assertEquals(Set.of(1L), memberNameIndex.findIdsContaining("Eo"));
+    }
+
+    @Test
+    public void 포함검색_회원id_묶음() {
+        //given
+        for (long id = 1; id <= 300; id++) {
+            memberNameIndex.put(id, "member" + id);
+        }
+
+        //when
+        List<List<Long>> chunks = memberNameIndex.findIdChunksContaining("member");
+
+        //then
+        assertEquals(2, chunks.size(), "256개씩 나눠야 한다");
+        assertEquals(256, chunks.get(0).size());
+        assertEquals(64, chunks.get(1).size(), "남은 44개는 64개로 채워서 SQL 모양을 고정해야 한다");
+    }
+
+    @Test
+    public void 포함검색_결과가_너무_많으면_예외() {
+        //given
+        for (long id = 1; id <= MemberNameIndex.MAX_CONTAINS_MATCHES + 1; id++) {
+            memberNameIndex.put(id, "member" + id);
+        }
+
+        //when, then
+        assertThrows(TooManySearchMatchesException.class, () -> memberNameIndex.findIdChunksContaining("m"));
+    }
+}
@@ -0,0 +1,49 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderFlatGrouperTest {
+
+    @Test
+    public void 연속된_row를_주문_단위로_접는다() {
+        List<OrderFlatDto> rows = List.of(
+                row(3L, "JPA Part1", 2), row(3L, "JPA Part2", 1),
+                row(1L, "Spring Part1", 3),
+                row(2L, "Spring Part2", 4), row(2L, "Dune", 1));
+
+        List<OrderQueryDto> result = OrderFlatGrouper.group(rows);
+
+        assertEquals(3, result.size());
+        assertEquals(List.of(3L, 1L, 2L), result.stream().map(OrderQueryDto::getOrderId).toList(), "쿼리의 정렬 순서를 그대로 유지해야 한다");
+        assertEquals(2, result.get(0).getOrderItems().size());
+        assertEquals(1, result.get(1).getOrderItems().size());
+        assertEquals("Dune", result.get(2).getOrderItems().get(1).getItemName());
+    }
+
+    @Test
+    public void limit은_row가_아니라_주문_개수로_건다() {
+        List<OrderQueryDto> result = new ArrayList<>();
+        OrderFlatGrouper grouper = new OrderFlatGrouper(1, result::add);
+
+        assertTrue(grouper.add(row(1L, "JPA Part1", 1)));
+        assertTrue(grouper.add(row(1L, "JPA Part2", 1)));
+        assertFalse(grouper.add(row(2L, "Spring Part1", 1)), "limit을 채운 뒤 다음 주문이 시작되면 false를 반환해야 한다");
+        grouper.finish();
+
+        assertEquals(1, result.size());
+        assertEquals(2, result.get(0).getOrderItems().size());
+    }
+
+    private OrderFlatDto row(Long orderId, String itemName, int count) {
+        return new OrderFlatDto(orderId, "Oh", LocalDateTime.now(), OrderStatus.ORDER,
+                new Address("Seoul", "yeonhee-ro", "03171"), 0, itemName, 10000, count);
+    }
+}
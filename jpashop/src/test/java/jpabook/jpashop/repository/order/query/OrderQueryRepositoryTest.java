@@ -0,0 +1,72 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 청크가 여러 개(주문 256건 초과)일 때만 병렬로 조회하므로 주문을 커밋해서 만든다 ==> 전용 DB
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:${random.uuid};DB_CLOSE_DELAY=-1", // 커밋하는 테스트라서 공유 DB(스키마, 시퀀스)를 건드리지 않도록 전용 DB
+        "jpashop.query.parallel-in-query=true"})
+@DirtiesContext
+public class OrderQueryRepositoryTest {
+
+    @Autowired
+    OrderQueryRepository orderQueryRepository;
+
+    @Autowired
+    OrderService orderService;
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    ItemService itemService;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void 병렬_IN_조회도_모든_주문상품을_합친다() throws Exception {
+        //given
+        Member member = new Member();
+        member.setName("parallel-member");
+        member.setAddress(new Address("Seoul", "street", "00000"));
+        Long memberId = memberService.join(member);
+        Book book = Book.createBook(null, "parallel-book", 10000, 1000, "author", "isbn");
+        itemService.saveItem(book);
+        for (int i = 0; i < 300; i++) {
+            orderService.order(memberId, book.getId(), 1);
+        }
+
+        //when
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        List<OrderQueryDto> orders = readOnlyTransaction.execute(status -> orderQueryRepository.findAllByDtoOptimization());
+
+        //then
+        List<OrderQueryDto> parallelOrders = orders.stream()
+                .filter(order -> "parallel-member".equals(order.getName())) // initDb 주문 제외
+                .toList();
+        long ordersWithoutItems = parallelOrders.stream()
+                .filter(order -> order.getOrderItems() == null || order.getOrderItems().size() != 1)
+                .count();
+        assertEquals(300, parallelOrders.size());
+        assertEquals(0, ordersWithoutItems, "청크마다 따로 조회해도 모든 주문에 주문상품이 붙어야 한다");
+    }
+}
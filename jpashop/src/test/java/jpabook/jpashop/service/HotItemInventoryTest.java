@@ -0,0 +1,197 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.HotItemStockRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 인기 상품 모드는 커밋/롤백 이후의 동작(카운터 되돌리기, write-behind)을 봐야 하므로 트랜잭션 롤백 테스트로 감싸지 않는다
+ * 반영 시점을 테스트에서 정하도록 백그라운드 반영 주기는 길게 잡는다
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:${random.uuid};DB_CLOSE_DELAY=-1", // 커밋하는 테스트라서 공유 DB(스키마, 시퀀스)를 건드리지 않도록 전용 DB
+        "jpashop.inventory.flush-interval-millis=3600000"})
+@DirtiesContext
+public class HotItemInventoryTest {
+
+    @Autowired
+    HotItemInventory hotItemInventory;
+
+    @Autowired
+    HotItemStockRepository hotItemStockRepository;
+
+    @Autowired
+    OrderService orderService;
+
+    @Autowired
+    ItemService itemService;
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Test
+    public void 인기상품_주문_메모리차감_후_반영() throws Exception {
+        //given
+        Long memberId = createMember();
+        Long itemId = createHotBook(10);
+
+        //when
+        orderService.order(memberId, itemId, 3);
+        orderService.order(memberId, List.of(new CartLine(itemId, 2)));
+        int stockBeforeFlush = stockQuantity(itemId);
+        hotItemInventory.flush();
+
+        //then
+        assertEquals(5, hotItemInventory.available(itemId), "메모리 카운터에서 바로 차감되어야 한다");
+        assertEquals(10, stockBeforeFlush, "item 재고는 반영 전까지 그대로다");
+        assertEquals(5, stockQuantity(itemId), "반영하면 주문 수량만큼 item 재고가 줄어야 한다");
+    }
+
+    @Test
+    public void 인기상품_재고부족_예외() throws Exception {
+        //given
+        Long memberId = createMember();
+        Long itemId = createHotBook(2);
+        orderService.order(memberId, itemId, 2);
+
+        //when, then
+        assertThrows(NotEnoughStockException.class, () -> orderService.order(memberId, itemId, 1));
+        assertEquals(0, hotItemInventory.available(itemId), "실패한 주문은 재고를 차감하지 않는다");
+    }
+
+    @Test
+    public void 인기상품_주문취소_카운터_복구() throws Exception {
+        //given
+        Long memberId = createMember();
+        Long itemId = createHotBook(10);
+        Long orderId = orderService.order(memberId, itemId, 4);
+
+        //when
+        orderService.cancelOrder(orderId); // 반영 전에 취소
+        hotItemInventory.flush();
+
+        //then
+        assertEquals(10, hotItemInventory.available(itemId), "취소하면 메모리 카운터에 되돌려야 한다");
+        assertEquals(10, stockQuantity(itemId), "취소로 더한 수량과 반영으로 뺀 수량이 맞아야 한다");
+    }
+
+    @Test
+    public void 품절된_인기상품_입고_후_주문() throws Exception {
+        //given
+        Long memberId = createMember();
+        Long itemId = createHotBook(2);
+        orderService.order(memberId, itemId, 2);
+        hotItemInventory.flush();
+        assertThrows(NotEnoughStockException.class, () -> orderService.order(memberId, itemId, 1));
+
+        //when
+        itemService.updateItem(itemId, "restocked-book", 10000, 5); // 품절(재고 0) 화면에서 5개로 수정
+        orderService.order(memberId, itemId, 3);
+        hotItemInventory.flush();
+
+        //then
+        assertEquals(2, hotItemInventory.available(itemId), "입고한 수량만큼 카운터에 더해져야 한다");
+        assertEquals(2, stockQuantity(itemId), "입고 5개 - 주문 3개");
+        assertEquals("restocked-book", itemService.findItem(itemId).getName(), "재고 외의 수정은 그대로 반영되어야 한다");
+    }
+
+    @Test
+    public void 인기상품_재고를_줄이면_카운터에서도_뺀다() throws Exception {
+        //given
+        Long memberId = createMember();
+        Long itemId = createHotBook(10);
+        orderService.order(memberId, itemId, 3); // 반영 전(item 재고 10, 카운터 7)
+
+        //when
+        itemService.updateItem(itemId, "hot-book", 10000, 6); // 화면의 재고 10 ==> 6(4개 감소)
+
+        //then
+        assertEquals(3, hotItemInventory.available(itemId));
+        assertEquals(3, stockQuantity(itemId), "대기분 3개와 감소분 4개가 모두 반영되어야 한다");
+        orderService.order(memberId, itemId, 2); // 반영 전(item 재고 3, 카운터 1)
+        assertThrows(NotEnoughStockException.class, () -> itemService.updateItem(itemId, "hot-book", 10000, 0), "카운터보다 많이 줄일 수는 없다");
+        assertEquals(1, hotItemInventory.available(itemId), "실패한 조정은 카운터를 되돌려야 한다");
+    }
+
+    @Test
+    public void 반영되지_않은_주문상품_재계산() throws Exception {
+        //given
+        Long memberId = createMember();
+        Long itemId = createHotBook(10);
+        orderService.order(memberId, itemId, 3); // 반영 전에 서버가 죽었다고 가정
+
+        //when
+        Long applied = new TransactionTemplate(transactionManager).execute(status -> hotItemStockRepository.applyPendingStock(itemId));
+
+        //then
+        assertEquals(3, applied, "order_item에 남은 대기 수량을 반영해야 한다");
+        assertEquals(7, stockQuantity(itemId));
+        Long appliedAgain = new TransactionTemplate(transactionManager).execute(status -> hotItemStockRepository.applyPendingStock(itemId));
+        assertEquals(0, appliedAgain, "이미 반영한 주문상품은 다시 빼지 않는다");
+        assertEquals(7, stockQuantity(itemId));
+    }
+
+    @Test
+    public void 인기상품이_아닌_상품의_대기분도_시작할때_반영() throws Exception {
+        //given
+        Long memberId = createMember();
+        Book book = Book.createBook(null, "was-hot-book-" + System.nanoTime(), 10000, 10, "author", "isbn");
+        itemService.saveItem(book);
+        Long itemId = book.getId();
+        orderService.order(memberId, itemId, 3);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> { // 지난 실행에서만 인기 상품이었다고 가정(재고는 그대로, 주문상품은 대기)
+            entityManager.createQuery("UPDATE OrderItem oi SET oi.stockPending = true WHERE oi.item.id = :itemId")
+                    .setParameter("itemId", itemId)
+                    .executeUpdate();
+            entityManager.createQuery("UPDATE Item i SET i.stockQuantity = 10 WHERE i.id = :itemId")
+                    .setParameter("itemId", itemId)
+                    .executeUpdate();
+        });
+
+        //when
+        hotItemInventory.reconcile();
+
+        //then
+        assertFalse(hotItemInventory.isHot(itemId));
+        assertEquals(7, stockQuantity(itemId), "설정에 없는 상품도 남은 대기 수량을 반영해야 한다");
+        assertFalse(hotItemStockRepository.findItemIdsWithPendingStock().contains(itemId));
+    }
+
+    private Long createMember() {
+        Member member = new Member();
+        member.setName("hot-member-" + System.nanoTime());
+        member.setAddress(new Address("Seoul", "street", "00000"));
+        return memberService.join(member);
+    }
+
+    private Long createHotBook(int stockQuantity) {
+        Book book = Book.createBook(null, "hot-book-" + System.nanoTime(), 10000, stockQuantity, "author", "isbn");
+        itemService.saveItem(book);
+        hotItemInventory.markHot(book.getId());
+        return book.getId();
+    }
+
+    private int stockQuantity(Long itemId) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        return transactionTemplate.execute(status -> hotItemStockRepository.findStockQuantity(itemId));
+    }
+}
@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.springframework.test.util.AssertionErrors.fail;
 
@@ -82,6 +83,93 @@ public class MemberServiceTest {
 //        });
 //    }
 
+    @Test
+    public void 중복_회원_예외() throws Exception {
+        //given
+        Member memberA = new Member();
+        memberA.setName("Oh Jaeuk");
+        memberService.join(memberA);
+
+        Member memberB = new Member();
+        memberB.setName("Oh Jaeuk");
+
+        //when, then
+        assertThrows(IllegalStateException.class, () -> {
+            memberService.join(memberB); // 블룸 필터에 있는 이름이므로 findByName()으로 중복 확인
+        });
+    }
+
+    @Test
+    public void 중복_회원_예외_유니크제약조건() throws Exception {
+        //given
+        Member memberA = new Member();
+        memberA.setName("Eom Jiwon");
+        entityManager.persist(memberA); // MemberService를 거치지 않아서 블룸 필터에 없는 이름(다른 서버에서 가입한 경우)
+        entityManager.flush();
+
+        Member memberB = new Member();
+        memberB.setName("Eom Jiwon");
+
+        //when, then
+        assertThrows(IllegalStateException.class, () -> {
+            memberService.join(memberB); // SELECT를 생략해도 유니크 제약조건이 중복을 막는다
+        });
+    }
+
+    @Test
+    public void 회원_대량가입() throws Exception {
+        //given
+        Member existing = new Member();
+        existing.setName("bulk-existing");
+        memberService.join(existing);
+
+        List<MemberImportRow> rows = List.of(
+                new MemberImportRow("bulk-1", "Seoul", "street-1", "00001"),
+                new MemberImportRow(" ", "Seoul", "street-2", "00002"),
+                new MemberImportRow("bulk-1", "Seoul", "street-3", "00003"),
+                new MemberImportRow("bulk-existing", "Seoul", "street-4", "00004"),
+                new MemberImportRow("bulk-2", "Busan", "street-5", "00005"));
+
+        //when
+        List<MemberRowResult> results = memberService.importMembers(rows);
+
+        //then
+        assertEquals(5, results.size(), "요청한 줄 수만큼 결과가 있어야 한다");
+        assertEquals(MemberRowResult.Outcome.CREATED, results.get(0).getOutcome());
+        assertEquals(MemberRowResult.Outcome.INVALID, results.get(1).getOutcome());
+        assertEquals(MemberRowResult.Outcome.DUPLICATE, results.get(2).getOutcome(), "요청 안의 중복 이름");
+        assertEquals(MemberRowResult.Outcome.DUPLICATE, results.get(3).getOutcome(), "이미 가입된 이름");
+        assertEquals(MemberRowResult.Outcome.CREATED, results.get(4).getOutcome());
+        assertEquals("Busan", memberRepository.findById(results.get(4).getId()).get().getAddress().getCity());
+    }
+
+    @Test
+    public void 회원_이름_일괄변경() throws Exception {
+        //given
+        Member memberA = new Member();
+        memberA.setName("rename-a");
+        Long idA = memberService.join(memberA);
+        Member memberB = new Member();
+        memberB.setName("rename-b");
+        Long idB = memberService.join(memberB);
+
+        List<MemberRenameRow> rows = List.of(
+                new MemberRenameRow(idA, "renamed-a"),
+                new MemberRenameRow(idB, "Oh"), // initDb에서 만든 회원 이름
+                new MemberRenameRow(Long.MAX_VALUE, "nobody"));
+
+        //when
+        List<MemberRowResult> results = memberService.renameMembers(rows);
+        entityManager.clear(); // 벌크 UPDATE는 영속성 컨텍스트를 거치지 않으므로 다시 조회
+
+        //then
+        assertEquals(MemberRowResult.Outcome.RENAMED, results.get(0).getOutcome());
+        assertEquals(MemberRowResult.Outcome.DUPLICATE, results.get(1).getOutcome());
+        assertEquals(MemberRowResult.Outcome.NOT_FOUND, results.get(2).getOutcome());
+        assertEquals("renamed-a", memberRepository.findById(idA).get().getName());
+        assertEquals("rename-b", memberRepository.findById(idB).get().getName(), "실패한 줄은 변경하지 않는다");
+    }
+
     @Test
     public void 원본_컬렉션과_하이버네이트_컬렉션_확인() {
         Member member = new Member();
@@ -0,0 +1,139 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 묶음 커밋이 끝난 뒤의 결과를 봐야 하므로 트랜잭션 롤백 테스트로 감싸지 않는다
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:${random.uuid};DB_CLOSE_DELAY=-1", // 커밋하는 테스트라서 공유 DB(스키마, 시퀀스)를 건드리지 않도록 전용 DB
+        "jpashop.order-ingestion.enabled=true"})
+@DirtiesContext
+public class OrderIngestionPipelineTest {
+
+    @Autowired
+    OrderIngestionPipeline orderIngestionPipeline;
+
+    @Autowired
+    OrderService orderService;
+
+    @Autowired
+    ItemService itemService;
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void 주문_묶음처리_재고부족은_해당주문만_실패() throws Exception {
+        //given
+        Long memberId = createMember();
+        Long itemId = createBook(10);
+
+        //when
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < 15; i++) {
+            futures.add(orderIngestionPipeline.submit(memberId, itemId, 1));
+        }
+
+        //then
+        int succeeded = 0;
+        int soldOut = 0;
+        for (CompletableFuture<Long> future : futures) {
+            try {
+                Long orderId = future.get(10, TimeUnit.SECONDS);
+                assertNotNull(orderId, "커밋된 주문 id를 돌려줘야 한다");
+                succeeded++;
+            } catch (ExecutionException e) {
+                assertInstanceOf(NotEnoughStockException.class, e.getCause());
+                soldOut++;
+            }
+        }
+        assertEquals(10, succeeded, "재고만큼만 주문이 성공해야 한다");
+        assertEquals(5, soldOut, "재고가 부족한 주문만 실패해야 한다");
+        assertEquals(0, stockQuantity(itemId));
+    }
+
+    @Test
+    public void 주문_묶음처리_실패한_묶음은_한건씩_다시처리() throws Exception {
+        //given
+        Long memberId = createMember();
+        Long itemId = createBook(10);
+
+        //when
+        CompletableFuture<Long> ordered1 = orderIngestionPipeline.submit(memberId, itemId, 1);
+        CompletableFuture<Long> invalid = orderIngestionPipeline.submit(-1L, itemId, 1); // 없는 회원 ==> 묶음 트랜잭션 롤백
+        CompletableFuture<Long> ordered2 = orderIngestionPipeline.submit(memberId, itemId, 2);
+
+        //then
+        Long orderId1 = ordered1.get(10, TimeUnit.SECONDS);
+        Long orderId2 = ordered2.get(10, TimeUnit.SECONDS);
+        assertThrows(ExecutionException.class, () -> invalid.get(10, TimeUnit.SECONDS), "문제 있는 주문만 실패해야 한다");
+        assertEquals(7, stockQuantity(itemId), "성공한 주문의 수량만 차감되어야 한다");
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            assertNotNull(orderRepository.findOne(orderId1));
+            assertNotNull(orderRepository.findOne(orderId2));
+        });
+    }
+
+    @Test
+    public void 종료된_뒤에_들어온_주문은_거절() throws Exception {
+        //given
+        OrderIngestionPipeline pipeline = new OrderIngestionPipeline(orderService, transactionManager, new SimpleMeterRegistry(), true, 10, 1, 100);
+        pipeline.start();
+        pipeline.stop();
+
+        //when
+        CompletableFuture<Long> future = pipeline.submit(createMember(), createBook(10), 1);
+
+        //then
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(1, TimeUnit.SECONDS), "future가 완료되지 않고 남으면 안된다");
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+    }
+
+    private Long createMember() {
+        Member member = new Member();
+        member.setName("ingestion-member-" + System.nanoTime());
+        member.setAddress(new Address("Seoul", "street", "00000"));
+        return memberService.join(member);
+    }
+
+    private Long createBook(int stockQuantity) {
+        Book book = Book.createBook(null, "ingestion-book-" + System.nanoTime(), 10000, stockQuantity, "author", "isbn");
+        itemService.saveItem(book);
+        return book.getId();
+    }
+
+    private int stockQuantity(Long itemId) {
+        return new TransactionTemplate(transactionManager).execute(status -> itemRepository.findOne(itemId).getStockQuantity());
+    }
+}
@@ -3,18 +3,26 @@ package jpabook.jpashop.service;
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderSearch;
 import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.OrderSummary;
 import jpabook.jpashop.domain.item.Book;
 import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.ItemRepository;
 import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSummaryRepository;
+import jpabook.jpashop.repository.order.query.OrderListDto;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.EntityManager;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -31,6 +39,12 @@ public class OrderServiceTest {
     @Autowired
     OrderRepository orderRepository;
 
+    @Autowired
+    ItemRepository itemRepository;
+
+    @Autowired
+    OrderSummaryRepository orderSummaryRepository;
+
     @Test
     public void 상품주문() throws Exception {
         //given
@@ -80,6 +94,96 @@ public class OrderServiceTest {
         assertEquals( 10, book.getStockQuantity(), "주문이 취소된 상품은 그만큼 재고가 증가해야한다.");
     }
 
+    @Test
+    public void 주문_중복취소_예외() throws Exception {
+        //given
+        Member member = createMember();
+        Item book = createBook("반지의제왕", 40000, 10);
+        Long orderId = orderService.order(member.getId(), book.getId(), 2);
+        orderService.cancelOrder(orderId);
+
+        //when, then
+        assertThrows(IllegalStateException.class, () -> orderService.cancelOrder(orderId), "이미 취소된 주문을 다시 취소하면 예외");
+        assertEquals(10, book.getStockQuantity(), "재고는 한 번만 원복되어야 한다");
+    }
+
+    @Test
+    public void 장바구니주문() throws Exception {
+        //given
+        Member member = createMember();
+        Item book1 = createBook("반지의제왕", 40000, 10);
+        Item book2 = createBook("실마릴리온", 30000, 5);
+        List<CartLine> cartLines = List.of(
+                new CartLine(book2.getId(), 1),
+                new CartLine(book1.getId(), 2),
+                new CartLine(book2.getId(), 2)); // 같은 상품이 여러 줄이면 합쳐서 주문
+
+        //when
+        Long orderId = orderService.order(member.getId(), cartLines);
+
+        //then
+        Order foundOrder = orderRepository.findOne(orderId);
+        assertEquals(2, foundOrder.getOrderItems().size(), "같은 상품은 주문상품 1개로 합쳐야 한다.");
+        assertEquals(40000 * 2 + 30000 * 3, foundOrder.getTotalPrice(), "주문 가격은 상품별 가격 * 수량의 합이다");
+        assertEquals(8, itemRepository.findOne(book1.getId()).getStockQuantity(), "주문 수량만큼 재고가 줄어야한다");
+        assertEquals(2, itemRepository.findOne(book2.getId()).getStockQuantity(), "주문 수량만큼 재고가 줄어야한다");
+    }
+
+    @Test
+    public void 장바구니주문_재고수량초과() throws Exception {
+        //given
+        Member member = createMember();
+        Item book1 = createBook("반지의제왕", 40000, 10);
+        Item book2 = createBook("실마릴리온", 30000, 5);
+        List<CartLine> cartLines = List.of(new CartLine(book1.getId(), 2), new CartLine(book2.getId(), 6));
+
+        //when, then
+        assertThrows(NotEnoughStockException.class, () -> {
+            orderService.order(member.getId(), cartLines);
+        });
+    }
+
+    @Test
+    public void 주문요약_주문취소_반영() throws Exception {
+        //given
+        Member member = createMember();
+        Item book1 = createBook("반지의제왕", 40000, 10);
+        Item book2 = createBook("실마릴리온", 30000, 5);
+        Long orderId = orderService.order(member.getId(), List.of(new CartLine(book1.getId(), 2), new CartLine(book2.getId(), 1)));
+
+        //when
+        OrderSummary ordered = orderSummaryRepository.findOne(orderId);
+        int itemCount = ordered.getItemCount();
+        int totalPrice = ordered.getTotalPrice();
+        String memberName = ordered.getMemberName();
+        orderService.cancelOrder(orderId);
+
+        //then
+        assertEquals(2, itemCount, "주문상품 종류 수를 저장해야 한다");
+        assertEquals(40000 * 2 + 30000, totalPrice, "주문 시점의 총 금액을 저장해야 한다");
+        assertEquals("회원A", memberName);
+        assertEquals(OrderStatus.CANCLE, orderSummaryRepository.findOne(orderId).getStatus(), "주문 취소시 요약의 상태도 CANCLE");
+    }
+
+    @Test
+    public void 주문목록_DTO_페이징() throws Exception {
+        //given
+        Member member = createMember();
+        Item book1 = createBook("반지의제왕", 40000, 10);
+        Item book2 = createBook("실마릴리온", 30000, 5);
+        orderService.order(member.getId(), List.of(new CartLine(book1.getId(), 2), new CartLine(book2.getId(), 1)));
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName("회원A");
+
+        //when
+        Page<OrderListDto> page = orderService.findOrderList(orderSearch, PageRequest.of(0, 1));
+
+        //then
+        assertEquals(1, page.getContent().size(), "페이지 크기만큼만 조회해야 한다");
+        assertEquals(2, page.getTotalElements(), "count 쿼리로 전체 주문상품 줄 수를 알아야 한다");
+        assertEquals("반지의제왕", page.getContent().get(0).getItemName());
+    }
+
     @Test
     public void 스트링빌더_테스트(){
         StringBuilder query = new StringBuilder("SELECT o FROM Order o join o.member m");
@@ -0,0 +1,61 @@
+package jpabook.jpashop.support;
+
+import jpabook.jpashop.common.query.QueryCounter;
+import jpabook.jpashop.common.query.QueryStats;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static jpabook.jpashop.common.query.QueryCountResponseAdvice.N_PLUS_ONE_HEADER;
+import static jpabook.jpashop.common.query.QueryCountResponseAdvice.QUERY_COUNT_HEADER;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 테스트에서 "이 API(로직)는 SQL을 N번 안에 끝내야 한다"를 선언하기 위한 검증 API
+ * 주석으로 "총 5번 호출"처럼 손으로 세던 것을 테스트로 고정해서, 쿼리가 늘어나면 테스트가 깨지게 한다.
+ *
+ * MockMvc: mockMvc.perform(get("/api/v2/simple-orders")).andExpect(QueryBudget.atMost(3))
+ * 일반 코드: QueryBudget.assertAtMost(3, () -> orderService.findOrders(orderSearch))
+ */
+public final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    public static ResultMatcher atMost(int maxStatements) {
+        return result -> {
+            long statementCount = headerValue(result.getResponse().getHeader(QUERY_COUNT_HEADER));
+            if (statementCount > maxStatements) {
+                fail(String.format("쿼리 예산 초과 - %s: 예산 %d번, 실제 %d번",
+                        result.getRequest().getRequestURI(), maxStatements, statementCount));
+            }
+        };
+    }
+
+    public static ResultMatcher noNPlusOne() {
+        return result -> assertEquals(0, headerValue(result.getResponse().getHeader(N_PLUS_ONE_HEADER)),
+                result.getRequest().getRequestURI() + "에서 같은 SQL이 반복 실행됨(1 + N 문제 의심)");
+    }
+
+    public static ResultMatcher nPlusOneDetected() {
+        return result -> assertTrue(headerValue(result.getResponse().getHeader(N_PLUS_ONE_HEADER)) > 0,
+                result.getRequest().getRequestURI() + "에서 1 + N 문제가 감지되지 않음");
+    }
+
+    public static QueryStats assertAtMost(int maxStatements, Runnable logic) {
+        QueryCounter.start();
+        QueryStats stats;
+        try {
+            logic.run();
+        } finally {
+            stats = QueryCounter.stop();
+        }
+        if (stats.getStatementCount() > maxStatements) {
+            fail(String.format("쿼리 예산 초과: 예산 %d번, 실제 %d번 %s", maxStatements, stats.getStatementCount(), stats.getCountBySql().keySet()));
+        }
+        return stats;
+    }
+
+    private static long headerValue(String header) {
+        assertNotNull(header, "SQL 통계 헤더가 없습니다. QueryCountFilter가 등록되어 있는지 확인하세요.");
+        return Long.parseLong(header);
+    }
+}